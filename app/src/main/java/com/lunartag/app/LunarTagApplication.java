@@ -4,6 +4,15 @@ import android.app.Application;
 
 // Import the core FirebaseApp class
 import com.google.firebase.FirebaseApp;
+import com.lunartag.app.data.DatabaseBackup;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.workers.DatabaseBackupWorker;
+import com.lunartag.app.workers.DatabaseMaintenanceWorker;
+import com.lunartag.app.workers.PhotoReconcileWorker;
+import com.lunartag.app.workers.SearchIndexWorker;
+import com.lunartag.app.workers.ThumbnailBackfillWorker;
+
+import java.io.File;
 
 /**
  * The custom Application class for Lunar Tag.
@@ -18,5 +27,26 @@ public class LunarTagApplication extends Application {
         // Manually initialize Firebase. This MUST be the first Firebase call.
         // This allows Remote Config to function correctly.
         FirebaseApp.initializeApp(this);
+
+        // Keep a small rotating on-disk copy of the live log for post-mortem debugging
+        LogBuffer.enableSpill(new File(getFilesDir(), "logs"));
+
+        // A restore chosen in Settings is applied here, before anything opens the database
+        DatabaseBackup.applyPendingRestore(this);
+
+        // One-time search index backfill for photos taken before full-text search existed
+        SearchIndexWorker.enqueueIfNeeded(this);
+
+        // One-time grid thumbnails for photos taken before they were made at capture time
+        ThumbnailBackfillWorker.enqueueIfNeeded(this);
+
+        // Daily ANALYZE / incremental vacuum / integrity check while idle and charging
+        DatabaseMaintenanceWorker.schedule(this);
+
+        // Daily check of the photos table against the saved files (deleted elsewhere, SD card out)
+        PhotoReconcileWorker.schedule(this);
+
+        // Daily compressed snapshot of the database (also copied to the custom folder if set)
+        DatabaseBackupWorker.schedule(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.lunartag.app;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.lunartag.app.utils.EmbeddedThumbnailLoader;
+import com.lunartag.app.utils.PackedThumbnailLoader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * App-wide Glide configuration.
+ * Registers the loader for tiles in the memory-mapped thumbnail pack.
+ * UPDATED: And the loader for EXIF thumbnails embedded in saved photos (viewer previews).
+ * UPDATED: Cache budgets sized to the device. Low-RAM devices keep about one screen of bitmaps;
+ * others keep three screens in memory, which with RGB_565 tiles covers several grid pages.
+ */
+@GlideModule
+public class LunarTagGlideModule extends AppGlideModule {
+
+    private static final long DISK_CACHE_BYTES = 100L * 1024 * 1024;
+    private static final long LOW_RAM_DISK_CACHE_BYTES = 32L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(lowRam ? 1 : 3)
+                .setBitmapPoolScreens(lowRam ? 1 : 2)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+
+        // Holds downscaled tiles of photos without a packed tile and viewer decodes, never originals
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                lowRam ? LOW_RAM_DISK_CACHE_BYTES : DISK_CACHE_BYTES));
+        builder.setLogLevel(Log.ERROR);
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(PackedThumbnailLoader.Tile.class, ByteBuffer.class, new PackedThumbnailLoader.Factory(context));
+        registry.prepend(EmbeddedThumbnailLoader.Source.class, ByteBuffer.class, new EmbeddedThumbnailLoader.Factory(context));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // No library in this app ships a manifest module
+        return false;
+    }
+}
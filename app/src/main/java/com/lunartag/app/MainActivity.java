@@ -1,10 +1,7 @@
 package com.lunartag.app;
 
 import android.Manifest;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.IntentSender;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
@@ -42,7 +39,7 @@ import com.google.android.gms.tasks.Task;
 import com.lunartag.app.databinding.ActivityMainBinding;
 import com.lunartag.app.firebase.RemoteConfigManager;
 import com.lunartag.app.services.SendService;
-import com.lunartag.app.ui.logs.LogFragment;
+import com.lunartag.app.utils.LogBuffer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -50,7 +47,7 @@ import java.util.Map;
 
 /**
  * The main screen of the application.
- * UPDATED: Handles centralized logging, blinking notification icon, AdMob Banner, 
+ * UPDATED: Handles centralized logging (via the in-process LogBuffer), blinking notification icon, AdMob Banner, 
  * Google Play In-App Updates, and Notification Permissions for 9 horizontal menu items.
  * FIXED: Captures direct share click intents to automatically dismount SendService and dispatch WhatsApp.
  */
@@ -65,47 +62,16 @@ public class MainActivity extends AppCompatActivity {
     private AppUpdateManager appUpdateManager;
     private static final int APP_UPDATE_REQUEST_CODE = 1001;
 
-    // --- CENTRAL LOG STORAGE ---
-    // Stores the logs so they persist when switching screens
-    private StringBuilder logHistory = new StringBuilder();
     private final Handler uiHandler = new Handler(Looper.getMainLooper());
 
-    // --- LIVE LOG RECEIVER ---
-    // Listens for messages from Robot, Camera, and System
-    private final BroadcastReceiver logReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if (intent != null && "com.lunartag.ACTION_LOG_UPDATE".equals(intent.getAction())) {
-                String message = intent.getStringExtra("log_msg");
-                String type = intent.getStringExtra("log_type"); // "info" or "error"
-
-                if (message != null) {
-                    // 1. Add to history
-                    logHistory.append(message).append("\n");
-
-                    // 2. Blink the Icon
-                    blinkLogIcon(type);
-
-                    // 3. If the Log Screen is currently open, update it in real-time
-                    NavHostFragment navHost = (NavHostFragment) getSupportFragmentManager().findFragmentById(R.id.nav_host_fragment_activity_main);
-                    if (navHost != null) {
-                        for (androidx.fragment.app.Fragment fragment : navHost.getChildFragmentManager().getFragments()) {
-                            if (fragment instanceof LogFragment && fragment.isVisible()) {
-                                ((LogFragment) fragment).appendLog(message);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    };
-
-    /**
-     * Public method for LogFragment to retrieve the full history when it opens.
-     */
-    public String getGlobalLogs() {
-        return logHistory.toString();
-    }
+    // --- LIVE LOG LISTENER ---
+    // Receives lines from Robot, Camera, and System through the in-process LogBuffer (no IPC).
+    // Called on the writer's thread, so UI work is posted to the main thread.
+    // The Log screen subscribes to LogBuffer itself; here we only blink the icon.
+    private final LogBuffer.Listener logListener = entry -> uiHandler.post(() -> {
+        if (binding == null) return;
+        blinkLogIcon(entry.level);
+    });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -114,8 +80,7 @@ public class MainActivity extends AppCompatActivity {
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        // Initialize Log History
-        logHistory.append("-- SYSTEM STARTED --\n");
+        LogBuffer.i("-- SYSTEM STARTED --");
 
         // *** NEW: Initialize In-App Update Manager ***
         appUpdateManager = AppUpdateManagerFactory.create(this);
@@ -302,22 +267,13 @@ public class MainActivity extends AppCompatActivity {
             });
         }
 
-        IntentFilter filter = new IntentFilter("com.lunartag.ACTION_LOG_UPDATE");
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-             registerReceiver(logReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-             registerReceiver(logReceiver, filter);
-        }
+        LogBuffer.addListener(logListener);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        try {
-            unregisterReceiver(logReceiver);
-        } catch (IllegalArgumentException e) {
-            // Receiver not registered
-        }
+        LogBuffer.removeListener(logListener);
     }
 
     /**
@@ -361,15 +317,15 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Blinks the Log Icon based on message type.
-     * RED for errors, GREEN for info.
+     * Blinks the Log Icon based on message severity.
+     * RED for warnings and errors, GREEN for info.
      */
-    private void blinkLogIcon(String type) {
+    private void blinkLogIcon(int level) {
         final int defaultColor = getAttributeColor(com.google.android.material.R.attr.colorOnSurface);
         int blinkColor = Color.GREEN; // Default info color
 
         // Detect error types
-        if (type != null && (type.equalsIgnoreCase("error") || type.equalsIgnoreCase("fail"))) {
+        if (level >= LogBuffer.LEVEL_WARN) {
             blinkColor = Color.RED;
         }
 
@@ -428,6 +384,6 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void onPermissionsGranted() {
-        logHistory.append("System: Permissions Granted.\n");
+        LogBuffer.i("System: Permissions Granted.");
     }
 }
\ No newline at end of file
@@ -1,41 +1,332 @@
 package com.lunartag.app.data;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.lunartag.app.model.AuditLog;
+import com.lunartag.app.model.CaptureDailyStat;
 import com.lunartag.app.model.ManualLocation;
 import com.lunartag.app.model.Photo;
+import com.lunartag.app.model.PhotoFts;
+import com.lunartag.app.model.PhotoStatus;
+import com.lunartag.app.model.PhotoString;
+import com.lunartag.app.utils.GeoHash;
 
 /**
  * The main database class for the application.
  * UPDATED: Added ManualLocation entity and bumped version to 2 for smart workplace tracking.
+ * UPDATED: Version 3 adds photoId/timestamp indexes on audit_logs through a real migration,
+ * so existing photos and workplaces survive the upgrade.
+ * UPDATED: Version 4 adds capture statistics: new photo columns, indexes on captureTimestampReal and status
+ * and the 'capture_daily_stats' summary table, maintained by triggers on 'photos'.
+ * UPDATED: Version 5 adds the 'photos_fts' full-text index, also maintained by triggers.
+ * UPDATED: Version 6 adds the indexed 'geohash' column for spatial lookups.
+ * UPDATED: Version 7 adds a (captureDay, captureTimestampReal) index for the gallery timeline.
+ * UPDATED: Version 8 compacts 'photos': integer status codes and the 'photo_strings' lookup table.
+ * UPDATED: Version 9 adds the grid thumbnail path to 'photos'.
+ * UPDATED: Version 10 adds the 'fileMissing' flag kept up to date by PhotoReconcileWorker.
+ * UPDATED: Version 11 adds the path of the downscaled share copy to 'photos'.
  */
-@Database(entities = {Photo.class, AuditLog.class, ManualLocation.class}, version = 2, exportSchema = false)
+@Database(entities = {Photo.class, AuditLog.class, ManualLocation.class, CaptureDailyStat.class, PhotoFts.class,
+        PhotoString.class},
+        version = AppDatabase.DATABASE_VERSION, exportSchema = false)
+@TypeConverters(Converters.class)
 public abstract class AppDatabase extends RoomDatabase {
 
+    public static final String DATABASE_NAME = "lunartag_database";
+    public static final int DATABASE_VERSION = 11;
+
     public abstract PhotoDao photoDao();
     public abstract AuditLogDao auditLogDao();
     public abstract ManualLocationDao manualLocationDao();
+    public abstract CaptureStatsDao captureStatsDao();
 
     private static volatile AppDatabase INSTANCE;
 
+    /**
+     * Version 2 -> 3: Index the audit log for per-photo lookups and retention compaction.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_photoId` ON `audit_logs` (`photoId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_audit_logs_timestamp` ON `audit_logs` (`timestamp`)");
+        }
+    };
+
+    // Local calendar day of a millisecond timestamp column, as "yyyy-MM-dd"
+    private static final String LOCAL_DAY_SQL = "date(%s / 1000, 'unixepoch', 'localtime')";
+
+    /**
+     * Version 3 -> 4: Capture statistics. Existing photos are grouped into the summary table;
+     * their size and latency are unknown and count as 0.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `workplaceName` TEXT");
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `captureDay` TEXT");
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `fileSizeBytes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `captureLatencyMs` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_captureTimestampReal` ON `photos` (`captureTimestampReal`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_status` ON `photos` (`status`)");
+            db.execSQL("UPDATE `photos` SET `captureDay` = " + LOCAL_DAY_SQL.replace("%s", "captureTimestampReal"));
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `capture_daily_stats` (`day` TEXT NOT NULL, `workplace` TEXT NOT NULL, " +
+                    "`photoCount` INTEGER NOT NULL, `bytesTotal` INTEGER NOT NULL, `latencyTotalMs` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`day`, `workplace`))");
+            db.execSQL("INSERT OR REPLACE INTO `capture_daily_stats` " +
+                    "SELECT `captureDay`, IFNULL(`workplaceName`, ''), COUNT(*), SUM(`fileSizeBytes`), SUM(`captureLatencyMs`) " +
+                    "FROM `photos` GROUP BY 1, 2");
+            createCaptureStatsTriggers(db);
+        }
+    };
+
+    /**
+     * Keeps 'capture_daily_stats' in step with 'photos'. Each trigger touches one summary row,
+     * so the cost per photo write is constant. The day is taken from the stored captureDay
+     * (falling back to the timestamp), so a time zone change never moves a photo between rows.
+     */
+    static void createCaptureStatsTriggers(SupportSQLiteDatabase db) {
+        String newDay = "IFNULL(NEW.captureDay, " + LOCAL_DAY_SQL.replace("%s", "NEW.captureTimestampReal") + ")";
+        String oldDay = "IFNULL(OLD.captureDay, " + LOCAL_DAY_SQL.replace("%s", "OLD.captureTimestampReal") + ")";
+        String newKey = "day = " + newDay + " AND workplace = IFNULL(NEW.workplaceName, '')";
+        String oldKey = "day = " + oldDay + " AND workplace = IFNULL(OLD.workplaceName, '')";
+
+        String addNew = "INSERT OR IGNORE INTO capture_daily_stats VALUES (" + newDay + ", IFNULL(NEW.workplaceName, ''), 0, 0, 0); " +
+                "UPDATE capture_daily_stats SET photoCount = photoCount + 1, bytesTotal = bytesTotal + NEW.fileSizeBytes, " +
+                "latencyTotalMs = latencyTotalMs + NEW.captureLatencyMs WHERE " + newKey + "; ";
+        String removeOld = "UPDATE capture_daily_stats SET photoCount = photoCount - 1, bytesTotal = bytesTotal - OLD.fileSizeBytes, " +
+                "latencyTotalMs = latencyTotalMs - OLD.captureLatencyMs WHERE " + oldKey + "; " +
+                "DELETE FROM capture_daily_stats WHERE " + oldKey + " AND photoCount <= 0; ";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `photos_stats_insert` AFTER INSERT ON `photos` BEGIN " +
+                addNew + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `photos_stats_delete` AFTER DELETE ON `photos` BEGIN " +
+                removeOld + "END");
+        // @Update rewrites every column, so only react when a statistics input really changed
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `photos_stats_update` AFTER UPDATE ON `photos` " +
+                "WHEN OLD.captureDay IS NOT NEW.captureDay OR OLD.captureTimestampReal != NEW.captureTimestampReal " +
+                "OR OLD.workplaceName IS NOT NEW.workplaceName OR OLD.fileSizeBytes != NEW.fileSizeBytes " +
+                "OR OLD.captureLatencyMs != NEW.captureLatencyMs BEGIN " +
+                removeOld + addNew + "END");
+    }
+
+    /**
+     * Version 4 -> 5: Full-text search. The index starts empty; SearchIndexWorker fills it
+     * for existing photos in batches, so the upgrade itself stays fast.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Must match the SQL Room generates for PhotoFts
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `photos_fts` USING FTS4(" +
+                    "`addressHuman` TEXT, `workplaceName` TEXT, `companyName` TEXT, tokenize=unicode61)");
+            // Frozen at the v5 schema: 'photos' still has companyName and no 'photo_strings' yet.
+            // SQLite only resolves trigger bodies when they fire, so the current triggers would
+            // break the row updates of the following migrations. 7 -> 8 replaces these.
+            createSearchTriggers(db, "NEW.companyName", "companyName");
+        }
+    };
+
+    /**
+     * Version 5 -> 6: Geohash column for "photos near here". SQLite cannot compute geohashes,
+     * so existing rows are encoded here in Java, one pass over the rows that have a location.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `geohash` TEXT");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_geohash` ON `photos` (`geohash`)");
+
+            try (Cursor cursor = db.query("SELECT id, lat, lon FROM photos WHERE lat != 0 OR lon != 0")) {
+                ContentValues values = new ContentValues();
+                while (cursor.moveToNext()) {
+                    values.put("geohash", GeoHash.forPhoto(cursor.getDouble(1), cursor.getDouble(2)));
+                    db.update("photos", SQLiteDatabase.CONFLICT_NONE, values, "id = ?",
+                            new Object[]{cursor.getLong(0)});
+                }
+            }
+        }
+    };
+
+    /**
+     * Version 6 -> 7: Lets the gallery load any slice of a day with a single index seek.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_captureDay_captureTimestampReal` " +
+                    "ON `photos` (`captureDay`, `captureTimestampReal`)");
+        }
+    };
+
+    /**
+     * Version 7 -> 8: Compact photo rows. Status names become PhotoStatus codes and the repeated
+     * company / watermark / shift strings move to 'photo_strings'. The SQLite shipped with
+     * API 26 can neither rename nor drop columns, so the table is rebuilt and copied once.
+     * Ids (and the AUTOINCREMENT high-water mark) are kept, so audit logs, the search index
+     * and scheduled alarms still point at the right photos.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `photo_strings` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`value` TEXT NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_photo_strings_value` ON `photo_strings` (`value`)");
+            db.execSQL("INSERT OR IGNORE INTO `photo_strings` (`value`) " +
+                    "SELECT `companyName` FROM `photos` WHERE `companyName` IS NOT NULL " +
+                    "UNION SELECT `watermarkName` FROM `photos` WHERE `watermarkName` IS NOT NULL " +
+                    "UNION SELECT `shiftStart` FROM `photos` WHERE `shiftStart` IS NOT NULL " +
+                    "UNION SELECT `shiftEnd` FROM `photos` WHERE `shiftEnd` IS NOT NULL");
+
+            // Must match the SQL Room generates for Photo
+            db.execSQL("CREATE TABLE IF NOT EXISTS `photos_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`filePath` TEXT, `assignedTimestamp` INTEGER NOT NULL, `captureTimestampReal` INTEGER NOT NULL, " +
+                    "`lat` REAL NOT NULL, `lon` REAL NOT NULL, `accuracyMeters` REAL NOT NULL, `addressHuman` TEXT, " +
+                    "`shiftStartId` INTEGER, `shiftEndId` INTEGER, `watermarkId` INTEGER, `companyId` INTEGER, " +
+                    "`sendScheduledAt` INTEGER NOT NULL, `status` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL, " +
+                    "`workplaceName` TEXT, `captureDay` TEXT, `fileSizeBytes` INTEGER NOT NULL, " +
+                    "`captureLatencyMs` INTEGER NOT NULL, `geohash` TEXT)");
+            db.execSQL("INSERT INTO `photos_new` SELECT `id`, `filePath`, `assignedTimestamp`, `captureTimestampReal`, " +
+                    "`lat`, `lon`, `accuracyMeters`, `addressHuman`, " +
+                    stringRef("shiftStart") + ", " + stringRef("shiftEnd") + ", " +
+                    stringRef("watermarkName") + ", " + stringRef("companyName") + ", " +
+                    "`sendScheduledAt`, " +
+                    "CASE `status` WHEN 'SENT' THEN " + PhotoStatus.CODE_SENT +
+                    " WHEN 'FAILED' THEN " + PhotoStatus.CODE_FAILED +
+                    " ELSE " + PhotoStatus.CODE_PENDING + " END, " +
+                    "`createdAt`, `workplaceName`, `captureDay`, `fileSizeBytes`, `captureLatencyMs`, `geohash` " +
+                    "FROM `photos`");
+            db.execSQL("UPDATE `sqlite_sequence` SET `seq` = (SELECT `seq` FROM `sqlite_sequence` WHERE `name` = 'photos') " +
+                    "WHERE `name` = 'photos_new'");
+
+            // Dropping the old table drops its indexes and triggers too
+            db.execSQL("DROP TABLE `photos`");
+            db.execSQL("ALTER TABLE `photos_new` RENAME TO `photos`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_captureTimestampReal` ON `photos` (`captureTimestampReal`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_status` ON `photos` (`status`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_geohash` ON `photos` (`geohash`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_captureDay_captureTimestampReal` " +
+                    "ON `photos` (`captureDay`, `captureTimestampReal`)");
+            createCaptureStatsTriggers(db);
+            createSearchTriggers(db);
+        }
+    };
+
+    /**
+     * Version 8 -> 9: Adds the grid thumbnail path. Existing photos are filled in by
+     * ThumbnailBackfillWorker.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `thumbnailPath` TEXT");
+        }
+    };
+
+    /**
+     * Version 9 -> 10: Adds the missing-file flag. Every photo starts as present; the next
+     * reconciliation run marks the ones whose file is gone.
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `fileMissing` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Version 10 -> 11: Adds the share copy path. Existing photos have none and keep sharing
+     * their original.
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `photos` ADD COLUMN `sharePath` TEXT");
+        }
+    };
+
+    private static String stringRef(String column) {
+        return "(SELECT `id` FROM `photo_strings` WHERE `value` = `photos`.`" + column + "`)";
+    }
+
+    /**
+     * Mirrors the searchable text of 'photos' into 'photos_fts' (rowid = photo id).
+     * The company name is looked up in 'photo_strings'; StringPool has already added it
+     * by the time the photo row is written.
+     * FIXED: Replaces whatever search triggers exist, so databases upgraded through the v5
+     * triggers (see MIGRATION_4_5) end up with the current ones.
+     */
+    static void createSearchTriggers(SupportSQLiteDatabase db) {
+        createSearchTriggers(db, "(SELECT value FROM photo_strings WHERE id = NEW.companyId)", "companyId");
+    }
+
+    /**
+     * @param newCompanyName SQL for the new row's company name.
+     * @param companyColumn The 'photos' column the company name is stored in.
+     */
+    private static void createSearchTriggers(SupportSQLiteDatabase db, String newCompanyName, String companyColumn) {
+        String insertNew = "INSERT INTO photos_fts (rowid, addressHuman, workplaceName, companyName) " +
+                "VALUES (NEW.id, NEW.addressHuman, NEW.workplaceName, " + newCompanyName + "); ";
+        String deleteOld = "DELETE FROM photos_fts WHERE rowid = OLD.id; ";
+
+        db.execSQL("DROP TRIGGER IF EXISTS `photos_fts_insert`");
+        db.execSQL("DROP TRIGGER IF EXISTS `photos_fts_delete`");
+        db.execSQL("DROP TRIGGER IF EXISTS `photos_fts_update`");
+        db.execSQL("CREATE TRIGGER `photos_fts_insert` AFTER INSERT ON `photos` BEGIN " +
+                insertNew + "END");
+        db.execSQL("CREATE TRIGGER `photos_fts_delete` AFTER DELETE ON `photos` BEGIN " +
+                deleteOld + "END");
+        // Status updates are frequent; only re-index when the searchable text changed
+        db.execSQL("CREATE TRIGGER `photos_fts_update` AFTER UPDATE ON `photos` " +
+                "WHEN OLD.addressHuman IS NOT NEW.addressHuman OR OLD.workplaceName IS NOT NEW.workplaceName " +
+                "OR OLD." + companyColumn + " IS NOT NEW." + companyColumn + " BEGIN " +
+                deleteOld + insertNew + "END");
+    }
+
+    /**
+     * Room creates the tables but not the triggers. Creating them on open covers fresh installs
+     * and destructive migrations alike, which run before the tables exist again.
+     * FIXED: The search triggers are dropped and recreated rather than kept if they exist, so a
+     * database carrying older trigger bodies is always brought up to date.
+     */
+    private static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            createCaptureStatsTriggers(db);
+            createSearchTriggers(db);
+        }
+    };
+
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
+                    StringPool stringPool = new StringPool();
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                                    AppDatabase.class, "lunartag_database")
-                            // Fallback to destructive migration is kept as per original logic 
-                            // but version is bumped to trigger the table creation.
+                                    AppDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+                                    MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11)
+                            .addTypeConverter(stringPool)
+                            .addCallback(CALLBACK)
+                            // Destructive fallback is kept only for versions without a migration path.
                             .fallbackToDestructiveMigration()
                             .build();
+                    stringPool.attach(INSTANCE);
                 }
             }
         }
         return INSTANCE;
     }
-}
\ No newline at end of file
+}
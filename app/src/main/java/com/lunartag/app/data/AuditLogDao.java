@@ -4,6 +4,7 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
 
+import com.lunartag.app.model.AuditActionCount;
 import com.lunartag.app.model.AuditLog;
 
 import java.util.List;
@@ -11,6 +12,8 @@ import java.util.List;
 /**
  * Data Access Object (DAO) for the AuditLog entity.
  * This interface defines the database interactions for the 'audit_logs' table.
+ * UPDATED: Added batch insert and bounded retention queries for the AuditLogger pipeline.
+ * UPDATED: Added keyset paging and per-action counts for the log export.
  */
 @Dao
 public interface AuditLogDao {
@@ -22,6 +25,14 @@ public interface AuditLogDao {
     @Insert
     void insertLog(AuditLog auditLog);
 
+    /**
+     * Inserts a batch of audit log records in a single transaction.
+     * Used by the AuditLogger background flush.
+     * @param auditLogs The audit log objects to insert.
+     */
+    @Insert
+    void insertLogs(List<AuditLog> auditLogs);
+
     /**
      * Retrieves all audit logs for a specific photo ID, ordered by the most recent first.
      * @param photoId The ID of the photo to get logs for.
@@ -37,4 +48,41 @@ public interface AuditLogDao {
     @Query("SELECT * FROM audit_logs ORDER BY timestamp DESC")
     List<AuditLog> getAllLogs();
 
+    /**
+     * Returns the total number of audit log rows.
+     */
+    @Query("SELECT COUNT(*) FROM audit_logs")
+    int getLogCount();
+
+    /**
+     * Retention: deletes at most {@code limit} rows older than the cutoff, oldest first.
+     * The limit keeps each compaction statement short so foreground writes are not held up.
+     * @return The number of rows deleted.
+     */
+    @Query("DELETE FROM audit_logs WHERE id IN " +
+           "(SELECT id FROM audit_logs WHERE timestamp < :cutoff ORDER BY timestamp ASC LIMIT :limit)")
+    int deleteLogsOlderThan(long cutoff, int limit);
+
+    /**
+     * Retention: deletes the {@code limit} oldest rows, regardless of age.
+     * Used when the table grows past its row cap.
+     * @return The number of rows deleted.
+     */
+    @Query("DELETE FROM audit_logs WHERE id IN " +
+           "(SELECT id FROM audit_logs ORDER BY id ASC LIMIT :limit)")
+    int deleteOldestLogs(int limit);
+
+    /**
+     * Keyset paging for exports: returns up to {@code limit} rows with an id greater than
+     * {@code afterId}, in id order. Pass the last id of the previous page to get the next one.
+     * Unlike OFFSET paging, every page is a direct primary key range seek.
+     */
+    @Query("SELECT * FROM audit_logs WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<AuditLog> getLogsAfter(long afterId, int limit);
+
+    /**
+     * Returns the number of audit rows per action, used for export summaries.
+     */
+    @Query("SELECT action, COUNT(*) AS count FROM audit_logs GROUP BY action ORDER BY action")
+    List<AuditActionCount> getActionCounts();
 }
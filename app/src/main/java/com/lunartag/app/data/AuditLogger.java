@@ -0,0 +1,169 @@
+package com.lunartag.app.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.lunartag.app.model.AuditLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batched, asynchronous writer for the 'audit_logs' table.
+ * Callers (e.g. the capture path) only pay for one lock-free queue offer. A single background
+ * thread drains the queue into Room, one transaction per batch, either when the batch fills up
+ * or when the flush interval expires, whichever comes first.
+ * The same thread applies bounded retention compaction so the table never grows without limit.
+ */
+public class AuditLogger {
+
+    private static final String TAG = "AuditLogger";
+
+    // Actions expected by the QA plan (Section 7: Audit & Compliance)
+    public static final String ACTION_CAPTURE = "CAPTURE";
+    public static final String ACTION_ASSIGN = "ASSIGN";
+    public static final String ACTION_SEND_ATTEMPT = "SEND_ATTEMPT";
+    public static final String ACTION_SEND_SUCCESS = "SEND_SUCCESS";
+    public static final String ACTION_SEND_FAILED = "SEND_FAILED";
+
+    // Diagnostics
+    public static final String ACTION_DB_MAINTENANCE = "DB_MAINTENANCE";
+    public static final String ACTION_DB_BACKUP = "DB_BACKUP";
+
+    // Flush policy: by size or by time
+    private static final int BATCH_SIZE = 64;
+    private static final long FLUSH_INTERVAL_MS = 2000;
+
+    // Retention policy
+    private static final long RETENTION_MS = 180L * 24 * 60 * 60 * 1000; // 180 days
+    private static final int MAX_ROWS = 200_000;
+    private static final int COMPACTION_CHUNK = 1000; // Rows deleted per statement
+    private static final int MAX_CHUNKS_PER_PASS = 10; // Bounds the work done per compaction pass
+    private static final long COMPACTION_INTERVAL_MS = 60L * 60 * 1000; // At most once per hour
+
+    private static volatile AuditLogger INSTANCE;
+
+    private final AuditLogDao auditLogDao;
+    private final ConcurrentLinkedQueue<AuditLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService executor;
+
+    // Only touched on the executor thread
+    private long lastCompactionAt = 0;
+
+    private AuditLogger(Context context) {
+        this.auditLogDao = AppDatabase.getDatabase(context).auditLogDao();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AuditLogger");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public static AuditLogger getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (AuditLogger.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AuditLogger(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Queues an audit event. Never touches the database on the calling thread.
+     * @param photoId The ID of the photo this event relates to (0 if none).
+     * @param action One of the ACTION_* constants.
+     * @param details Extra details, typically a small JSON string. May be null.
+     */
+    public void log(long photoId, String action, String details) {
+        AuditLog entry = new AuditLog();
+        entry.setPhotoId(photoId);
+        entry.setAction(action);
+        entry.setDetails(details);
+        entry.setTimestamp(System.currentTimeMillis());
+        queue.offer(entry);
+
+        int pending = pendingCount.incrementAndGet();
+        if (pending == BATCH_SIZE) {
+            // Size trigger: the batch is full, flush right away
+            executor.execute(this::flush);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            // Time trigger: the first event of a batch arms the flush timer
+            executor.schedule(this::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes any queued events now and waits for them to reach the database.
+     * Must not be called on the main thread. Used before reading the table back, e.g. for exports.
+     */
+    public void flushNow() {
+        try {
+            executor.submit(this::flush).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Blocking audit flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drains the queue into the database. Runs on the executor thread only.
+     */
+    private void flush() {
+        // Re-arm first, so events queued while we write get their own timer
+        flushScheduled.set(false);
+
+        List<AuditLog> batch = new ArrayList<>(BATCH_SIZE);
+        AuditLog entry;
+        while ((entry = queue.poll()) != null) {
+            batch.add(entry);
+        }
+        if (!batch.isEmpty()) {
+            pendingCount.addAndGet(-batch.size());
+            try {
+                // @Insert with a List runs as a single transaction
+                auditLogDao.insertLogs(batch);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to flush " + batch.size() + " audit entries: " + e.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastCompactionAt >= COMPACTION_INTERVAL_MS) {
+            lastCompactionAt = now;
+            compact(now);
+        }
+    }
+
+    /**
+     * Bounded retention: removes expired rows, then trims the table to MAX_ROWS.
+     * Each statement deletes at most COMPACTION_CHUNK rows and a pass runs at most
+     * MAX_CHUNKS_PER_PASS statements; anything left over is handled by the next pass.
+     */
+    private void compact(long now) {
+        try {
+            int chunks = 0;
+            int deleted;
+            do {
+                deleted = auditLogDao.deleteLogsOlderThan(now - RETENTION_MS, COMPACTION_CHUNK);
+                chunks++;
+            } while (deleted == COMPACTION_CHUNK && chunks < MAX_CHUNKS_PER_PASS);
+
+            int excess = auditLogDao.getLogCount() - MAX_ROWS;
+            while (excess > 0 && chunks < MAX_CHUNKS_PER_PASS) {
+                excess -= auditLogDao.deleteOldestLogs(Math.min(excess, COMPACTION_CHUNK));
+                chunks++;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Audit log compaction failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.lunartag.app.data;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.lunartag.app.model.CaptureStats;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) for the 'capture_daily_stats' summary table.
+ * All queries read the small summary table only; it holds one row per day and workplace,
+ * so their cost does not depend on the number of photos.
+ */
+@Dao
+public interface CaptureStatsDao {
+
+    /**
+     * Totals per day from the given day (inclusive), newest first.
+     * @param fromDay Local day in "yyyy-MM-dd" format.
+     */
+    @Query("SELECT day AS label, SUM(photoCount) AS photoCount, SUM(bytesTotal) AS bytesTotal, " +
+           "SUM(latencyTotalMs) AS latencyTotalMs FROM capture_daily_stats " +
+           "WHERE day >= :fromDay GROUP BY day ORDER BY day DESC")
+    List<CaptureStats> getDailyTotals(String fromDay);
+
+    /**
+     * Totals per workplace from the given day (inclusive), busiest first.
+     * Photos taken without a workplace are grouped under an empty label.
+     * @param fromDay Local day in "yyyy-MM-dd" format.
+     */
+    @Query("SELECT workplace AS label, SUM(photoCount) AS photoCount, SUM(bytesTotal) AS bytesTotal, " +
+           "SUM(latencyTotalMs) AS latencyTotalMs FROM capture_daily_stats " +
+           "WHERE day >= :fromDay GROUP BY workplace ORDER BY photoCount DESC")
+    List<CaptureStats> getWorkplaceTotals(String fromDay);
+
+    /**
+     * Totals over the whole library.
+     */
+    @Query("SELECT 'ALL' AS label, IFNULL(SUM(photoCount), 0) AS photoCount, IFNULL(SUM(bytesTotal), 0) AS bytesTotal, " +
+           "IFNULL(SUM(latencyTotalMs), 0) AS latencyTotalMs FROM capture_daily_stats")
+    CaptureStats getOverallTotals();
+}
@@ -0,0 +1,21 @@
+package com.lunartag.app.data;
+
+import androidx.room.TypeConverter;
+
+import com.lunartag.app.model.PhotoStatus;
+
+/**
+ * Room type converters shared by every entity and DAO.
+ */
+public class Converters {
+
+    @TypeConverter
+    public static int fromPhotoStatus(PhotoStatus status) {
+        return status != null ? status.code : PhotoStatus.CODE_PENDING;
+    }
+
+    @TypeConverter
+    public static PhotoStatus toPhotoStatus(int code) {
+        return PhotoStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,440 @@
+package com.lunartag.app.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.documentfile.provider.DocumentFile;
+
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.StorageUtils;
+import com.lunartag.app.utils.ThumbnailPack;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Online snapshot backup and validated restore of 'lunartag_database'.
+ *
+ * Snapshots are taken on a private connection inside a read transaction, so with WAL the app
+ * keeps reading and writing while the copy runs. API 30+ uses VACUUM INTO (a compact, consistent
+ * copy in one statement). Older releases ship an SQLite without it; there the schema and rows are
+ * copied table by table from an attached read snapshot. The copy is gzipped into
+ * files/backups/, only the newest MAX_BACKUPS are kept, and a copy goes to the user's custom
+ * folder (if one is selected) so it survives the loss of the phone.
+ *
+ * A restore never swaps the file under a live Room instance: the backup is validated into a
+ * candidate next to the database, staged only once the user confirms, and applyPendingRestore()
+ * moves it into place on the next process start, before anything opens the database.
+ * FIXED: An unconfirmed candidate is never applied; it is deleted at startup.
+ */
+public final class DatabaseBackup {
+
+    private static final String TAG = "DatabaseBackup";
+
+    private static final String BACKUP_DIR = "backups";
+    private static final String BACKUP_PREFIX = "lunartag_backup_";
+    private static final String BACKUP_SUFFIX = ".db.gz";
+    private static final String FOLDER_NAME = "LunarTag Backups"; // Inside the custom folder
+    private static final String STAGED_SUFFIX = ".restore";
+    private static final String CANDIDATE_SUFFIX = ".restore-candidate";
+    public static final int MAX_BACKUPS = 5;
+
+    private static final String PREFS_BACKUP = "LunarTagBackupPrefs";
+    private static final String KEY_LAST_REPORT = "last_backup_report";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Tables a usable backup must contain
+    private static final String[] REQUIRED_TABLES = {"photos", "manual_locations", "audit_logs"};
+
+    /**
+     * Outcome of one snapshot.
+     */
+    public static class Report {
+        public final File file;
+        public final long databaseBytes; // Uncompressed snapshot
+        public final long compressedBytes;
+        public final long durationMs;
+        public final boolean copiedToFolder;
+
+        Report(File file, long databaseBytes, long compressedBytes, long durationMs, boolean copiedToFolder) {
+            this.file = file;
+            this.databaseBytes = databaseBytes;
+            this.compressedBytes = compressedBytes;
+            this.durationMs = durationMs;
+            this.copiedToFolder = copiedToFolder;
+        }
+
+        public String summary() {
+            return String.format(Locale.US, "%s: %.1f MB -> %.1f MB gzip in %d ms%s",
+                    new SimpleDateFormat("dd MMM HH:mm", Locale.US).format(new Date(file.lastModified())),
+                    databaseBytes / 1048576.0, compressedBytes / 1048576.0, durationMs,
+                    copiedToFolder ? ", copied to folder" : "");
+        }
+    }
+
+    private DatabaseBackup() {}
+
+    // --- Snapshot ---
+
+    /**
+     * Takes a snapshot now. Blocking; call from a background thread.
+     */
+    public static Report createSnapshot(Context context) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        File source = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+        File dir = new File(context.getFilesDir(), BACKUP_DIR);
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+
+        // Make sure Room has created/migrated the file and recent audit events are in it
+        boolean wal = AppDatabase.getDatabase(context).getOpenHelper().getWritableDatabase().isWriteAheadLoggingEnabled();
+        AuditLogger.getInstance(context).flushNow();
+
+        File snapshot = new File(context.getCacheDir(), "snapshot.db");
+        deleteDatabaseFiles(snapshot);
+        String name = BACKUP_PREFIX + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date()) + BACKUP_SUFFIX;
+        File backup = new File(dir, name);
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                vacuumInto(source, snapshot, wal);
+            } else {
+                copyInto(source, snapshot);
+            }
+            long databaseBytes = snapshot.length();
+            try (InputStream in = new FileInputStream(snapshot);
+                 OutputStream out = new GZIPOutputStream(new FileOutputStream(backup), BUFFER_SIZE)) {
+                copy(in, out);
+            }
+            pruneLocal(dir);
+            boolean copied = copyToCustomFolder(context, backup);
+
+            Report report = new Report(backup, databaseBytes, backup.length(),
+                    SystemClock.elapsedRealtime() - start, copied);
+            context.getSharedPreferences(PREFS_BACKUP, Context.MODE_PRIVATE)
+                    .edit().putString(KEY_LAST_REPORT, report.summary()).apply();
+            AuditLogger.getInstance(context).log(0, AuditLogger.ACTION_DB_BACKUP,
+                    "{\"bytes\":" + databaseBytes + ",\"gzipBytes\":" + report.compressedBytes +
+                    ",\"durationMs\":" + report.durationMs + ",\"folder\":" + copied + "}");
+            LogBuffer.i("Backup: " + report.summary());
+            return report;
+        } catch (IOException | RuntimeException e) {
+            backup.delete();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        } finally {
+            deleteDatabaseFiles(snapshot);
+        }
+    }
+
+    /**
+     * Summary of the last successful snapshot, or null if none was taken yet.
+     */
+    @Nullable
+    public static String getLastReport(Context context) {
+        return context.getSharedPreferences(PREFS_BACKUP, Context.MODE_PRIVATE).getString(KEY_LAST_REPORT, null);
+    }
+
+    /**
+     * Local backups, newest first.
+     */
+    public static List<File> listBackups(Context context) {
+        File[] files = new File(context.getFilesDir(), BACKUP_DIR).listFiles(
+                (d, n) -> n.startsWith(BACKUP_PREFIX) && n.endsWith(BACKUP_SUFFIX));
+        List<File> list = new ArrayList<>();
+        if (files == null) return list;
+        // Names embed the timestamp, so reverse name order is newest first
+        Arrays.sort(files, (a, b) -> b.getName().compareTo(a.getName()));
+        list.addAll(Arrays.asList(files));
+        return list;
+    }
+
+    /**
+     * API 30+: one statement on a private connection. VACUUM INTO reads the source inside its
+     * own read transaction and writes a compact copy.
+     */
+    private static void vacuumInto(File source, File target, boolean wal) {
+        // Open in the journal mode Room uses; Android would otherwise try to switch a WAL file
+        // back to its default journal mode
+        int flags = SQLiteDatabase.OPEN_READWRITE | (wal ? SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING : 0);
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(source.getPath(), null, flags);
+        try {
+            db.execSQL("VACUUM INTO ?", new Object[]{target.getPath()});
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Pre-API 30: copies schema and rows from an attached read snapshot of the source.
+     * The target connection is a plain single-connection database, so every statement runs on
+     * the same SQLite connection. A SAVEPOINT (unlike Android's BEGIN, which is EXCLUSIVE and
+     * would lock the source too) opens a deferred transaction: the source is only read, so in
+     * WAL mode the app's writers are never blocked, and every table comes from the same snapshot.
+     */
+    private static void copyInto(File source, File target) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(target, null);
+        try {
+            db.execSQL("ATTACH DATABASE ? AS src", new Object[]{source.getPath()});
+            db.execSQL("SAVEPOINT snapshot");
+
+            // Virtual tables first: creating one creates its shadow tables, which a VACUUM (see
+            // DatabaseMaintenanceWorker) lists before it and which must not exist beforehand
+            List<String[]> schema = new ArrayList<>(); // type, name, sql
+            try (Cursor cursor = db.rawQuery("SELECT type, name, sql FROM src.sqlite_master WHERE sql IS NOT NULL " +
+                    "ORDER BY CASE WHEN type = 'table' AND sql LIKE 'CREATE VIRTUAL TABLE%' THEN 0 " +
+                    "WHEN type = 'table' THEN 1 WHEN type = 'index' THEN 2 ELSE 3 END", null)) {
+                while (cursor.moveToNext()) {
+                    schema.add(new String[]{cursor.getString(0), cursor.getString(1), cursor.getString(2)});
+                }
+            }
+
+            // 1. Tables and rows. Indexes and triggers come after, so triggers do not fire on the copy.
+            for (String[] entry : schema) {
+                String name = entry[1];
+                if (!"table".equals(entry[0]) || name.startsWith("sqlite_") || "android_metadata".equals(name)) continue;
+                if (entry[2].regionMatches(true, 0, "CREATE VIRTUAL TABLE", 0, 20)) {
+                    db.execSQL(entry[2]); // Creates its shadow tables, whose rows are copied below
+                    continue;
+                }
+                if (!tableExists(db, name)) db.execSQL(entry[2]);
+                db.execSQL("INSERT INTO main.\"" + name + "\" SELECT * FROM src.\"" + name + "\"");
+            }
+            if (tableExists(db, "sqlite_sequence")) {
+                db.execSQL("DELETE FROM main.sqlite_sequence");
+                db.execSQL("INSERT INTO main.sqlite_sequence SELECT * FROM src.sqlite_sequence");
+            }
+
+            // 2. Indexes, then triggers
+            for (String[] entry : schema) {
+                if ("index".equals(entry[0]) || "trigger".equals(entry[0])) db.execSQL(entry[2]);
+            }
+
+            long version;
+            try (Cursor cursor = db.rawQuery("PRAGMA src.user_version", null)) {
+                version = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            }
+            db.execSQL("PRAGMA main.user_version = " + version);
+
+            db.execSQL("RELEASE snapshot");
+            db.execSQL("DETACH DATABASE src");
+        } finally {
+            db.close();
+        }
+    }
+
+    private static boolean tableExists(SQLiteDatabase db, String name) {
+        try (Cursor cursor = db.rawQuery("SELECT 1 FROM main.sqlite_master WHERE type = 'table' AND name = ?",
+                new String[]{name})) {
+            return cursor.moveToFirst();
+        }
+    }
+
+    private static void pruneLocal(File dir) {
+        File[] files = dir.listFiles((d, n) -> n.startsWith(BACKUP_PREFIX) && n.endsWith(BACKUP_SUFFIX));
+        if (files == null || files.length <= MAX_BACKUPS) return;
+        Arrays.sort(files, (a, b) -> b.getName().compareTo(a.getName()));
+        for (int i = MAX_BACKUPS; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * Copies a backup into "LunarTag Backups" inside the user's custom folder and prunes old ones
+     * there. Only the small backups sub-folder is listed, never the photo folder itself.
+     */
+    private static boolean copyToCustomFolder(Context context, File backup) {
+        DocumentFile root = StorageUtils.getCustomFolder(context);
+        if (root == null) return false;
+        try {
+            DocumentFile dir = root.findFile(FOLDER_NAME);
+            if (dir == null || !dir.isDirectory()) dir = root.createDirectory(FOLDER_NAME);
+            if (dir == null) return false;
+
+            DocumentFile target = dir.createFile("application/gzip", backup.getName());
+            if (target == null) return false;
+            try (InputStream in = new FileInputStream(backup);
+                 OutputStream out = context.getContentResolver().openOutputStream(target.getUri())) {
+                if (out == null) return false;
+                copy(in, out);
+            }
+
+            List<DocumentFile> existing = new ArrayList<>();
+            for (DocumentFile file : dir.listFiles()) {
+                String name = file.getName();
+                if (name != null && name.startsWith(BACKUP_PREFIX)) existing.add(file);
+            }
+            existing.sort((a, b) -> String.valueOf(b.getName()).compareTo(String.valueOf(a.getName())));
+            for (int i = MAX_BACKUPS; i < existing.size(); i++) {
+                existing.get(i).delete();
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Copy to custom folder failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // --- Restore ---
+
+    /**
+     * Decompresses and validates a backup into a restore candidate. Blocking.
+     * The candidate is not applied until confirmRestore() stages it, so a restore the user never
+     * confirmed (dialog lost to rotation or process death) is dropped on the next start.
+     * @return Number of photos in the backup.
+     * @throws IOException If the file is not a usable LunarTag backup; no candidate is kept then.
+     */
+    public static int prepareRestore(Context context, Uri backupUri) throws IOException {
+        File candidate = getCandidateFile(context);
+        deleteDatabaseFiles(candidate);
+        boolean valid = false;
+        try {
+            try (InputStream raw = context.getContentResolver().openInputStream(backupUri)) {
+                if (raw == null) throw new IOException("Cannot open backup");
+                try (InputStream in = new GZIPInputStream(raw, BUFFER_SIZE);
+                     OutputStream out = new FileOutputStream(candidate)) {
+                    copy(in, out);
+                }
+            }
+            int photos = validate(candidate);
+            valid = true;
+            return photos;
+        } finally {
+            if (valid) {
+                deleteSidecarFiles(candidate);
+            } else {
+                deleteDatabaseFiles(candidate);
+            }
+        }
+    }
+
+    /**
+     * Stages the validated candidate so applyPendingRestore() moves it into place on the next
+     * start. Call only once the user has confirmed the restore. A rename in the database folder,
+     * so cheap enough for the main thread.
+     * @return False if there is no candidate or it could not be staged.
+     */
+    public static boolean confirmRestore(Context context) {
+        File candidate = getCandidateFile(context);
+        File staged = getStagedFile(context);
+        if (!candidate.exists()) return false;
+        if (staged.exists() && !staged.delete()) return false;
+        if (!candidate.renameTo(staged)) {
+            Log.e(TAG, "Could not stage restore candidate");
+            return false;
+        }
+        LogBuffer.w("Backup: Restore staged; applies on next start.");
+        return true;
+    }
+
+    /**
+     * Checks that a decompressed file is an intact LunarTag database that this app version can
+     * open (Room migrates older versions; newer ones are refused).
+     */
+    private static int validate(File file) throws IOException {
+        SQLiteDatabase db;
+        try {
+            db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        } catch (Exception e) {
+            throw new IOException("Not a database file");
+        }
+        try {
+            int version = db.getVersion();
+            if (version < 2 || version > AppDatabase.DATABASE_VERSION) {
+                throw new IOException("Unsupported database version " + version);
+            }
+            for (String table : REQUIRED_TABLES) {
+                try (Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+                        new String[]{table})) {
+                    if (!cursor.moveToFirst()) throw new IOException("Missing table " + table);
+                }
+            }
+            try (Cursor cursor = db.rawQuery("PRAGMA integrity_check", null)) {
+                String result = cursor.moveToFirst() ? cursor.getString(0) : null;
+                if (!"ok".equals(result)) throw new IOException("Integrity check failed: " + result);
+            }
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM photos", null)) {
+                return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Moves a confirmed restore into place and drops an unconfirmed candidate. Must run at process start before the database is
+     * opened (LunarTagApplication.onCreate).
+     */
+    public static void applyPendingRestore(Context context) {
+        // A candidate still here was never confirmed; it must not be applied later either
+        deleteDatabaseFiles(getCandidateFile(context));
+
+        File staged = getStagedFile(context);
+        if (!staged.exists()) return;
+        File database = context.getDatabasePath(AppDatabase.DATABASE_NAME);
+        // A leftover WAL belongs to the old file and would corrupt the restored one
+        new File(database.getPath() + "-wal").delete();
+        new File(database.getPath() + "-shm").delete();
+        new File(database.getPath() + "-journal").delete();
+        if (staged.renameTo(database)) {
+            LogBuffer.w("Backup: Database restored from backup.");
+            // Packed tiles are keyed by photo id, which the restored rows may reuse
+            ThumbnailPack.discard(context);
+        } else {
+            Log.e(TAG, "Could not move staged restore into place");
+        }
+    }
+
+    /**
+     * Drops a restore candidate or staged restore the user decided not to apply.
+     */
+    public static void cancelPendingRestore(Context context) {
+        deleteDatabaseFiles(getCandidateFile(context));
+        getStagedFile(context).delete();
+    }
+
+    private static File getCandidateFile(Context context) {
+        return new File(context.getDatabasePath(AppDatabase.DATABASE_NAME).getPath() + CANDIDATE_SUFFIX);
+    }
+
+    private static File getStagedFile(Context context) {
+        return new File(context.getDatabasePath(AppDatabase.DATABASE_NAME).getPath() + STAGED_SUFFIX);
+    }
+
+    // --- Helpers ---
+
+    private static void deleteDatabaseFiles(File file) {
+        file.delete();
+        deleteSidecarFiles(file);
+    }
+
+    private static void deleteSidecarFiles(File file) {
+        new File(file.getPath() + "-journal").delete();
+        new File(file.getPath() + "-wal").delete();
+        new File(file.getPath() + "-shm").delete();
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
@@ -3,9 +3,13 @@ package com.lunartag.app.data;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.lunartag.app.model.DaySection;
 import com.lunartag.app.model.Photo;
+import com.lunartag.app.model.PhotoStatus;
 
 import java.util.List;
 
@@ -13,6 +17,10 @@ import java.util.List;
  * Data Access Object (DAO) for the Photo entity.
  * This interface defines the database interactions for the 'photos' table.
  * UPDATED: Added delete capability for multi-select.
+ * UPDATED: Added full-text search through 'photos_fts' and the batched search index backfill.
+ * UPDATED: Added keyset-paged queries built by PhotoQuery (all / search / near);
+ * text search now goes through PhotoQuery as well.
+ * UPDATED: Added the day section index and per-day pages for the gallery timeline.
  */
 @Dao
 public interface PhotoDao {
@@ -59,7 +67,7 @@ public interface PhotoDao {
      * Retrieves all photos that have a "PENDING" status.
      * @return A list of pending Photo objects.
      */
-    @Query("SELECT * FROM photos WHERE status = 'PENDING'")
+    @Query("SELECT * FROM photos WHERE status = " + PhotoStatus.CODE_PENDING)
     List<Photo> getPendingPhotos();
 
     /**
@@ -69,4 +77,78 @@ public interface PhotoDao {
      */
     @Query("DELETE FROM photos WHERE id IN (:ids)")
     void deletePhotos(List<Long> ids);
-}
\ No newline at end of file
+
+    /**
+     * Runs one page of a PhotoQuery.
+     * @param query Built with PhotoQuery.page(), dayPage() or idsAndPaths().
+     */
+    @RawQuery(observedEntities = Photo.class)
+    List<Photo> getPhotoPage(SupportSQLiteQuery query);
+
+    /**
+     * Runs PhotoQuery.daySections(): one row per capture day with its photo count.
+     */
+    @RawQuery(observedEntities = Photo.class)
+    List<DaySection> getDaySections(SupportSQLiteQuery query);
+
+    /**
+     * Single-number queries built with PhotoQuery.count() or positionOf().
+     */
+    @RawQuery(observedEntities = Photo.class)
+    int countPhotos(SupportSQLiteQuery query);
+
+    /**
+     * Keyset page of photo IDs, used by background jobs that walk the whole table in batches.
+     */
+    @Query("SELECT id FROM photos WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<Long> getPhotoIdsAfter(long afterId, int limit);
+
+    /**
+     * Search index backfill: indexes the photos in (fromId, toId] that are not in 'photos_fts' yet.
+     */
+    @Query("INSERT INTO photos_fts (rowid, addressHuman, workplaceName, companyName) " +
+           "SELECT id, addressHuman, workplaceName, (SELECT value FROM photo_strings WHERE id = companyId) FROM photos " +
+           "WHERE id > :fromId AND id <= :toId " +
+           "AND NOT EXISTS (SELECT 1 FROM photos_fts WHERE photos_fts.rowid = photos.id)")
+    void indexPhotosForSearch(long fromId, long toId);
+
+    /**
+     * Photos that have coordinates but no resolved address yet, oldest first.
+     */
+    @Query("SELECT * FROM photos WHERE addressHuman IS NULL AND (lat != 0 OR lon != 0) ORDER BY id ASC LIMIT :limit")
+    List<Photo> getPhotosMissingAddress(int limit);
+
+    /**
+     * Sets the resolved address of a photo. The search index follows through its trigger.
+     */
+    @Query("UPDATE photos SET addressHuman = :address WHERE id = :id")
+    void updateAddress(long id, String address);
+
+    /**
+     * Keyset page of photos that have no grid thumbnail yet, oldest first.
+     */
+    @Query("SELECT * FROM photos WHERE thumbnailPath IS NULL AND id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<Photo> getPhotosMissingThumbnail(long afterId, int limit);
+
+    /**
+     * Keyset page of whole photo rows, for background jobs that need their file paths.
+     */
+    @Query("SELECT * FROM photos WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<Photo> getPhotosAfter(long afterId, int limit);
+
+    @Query("UPDATE photos SET thumbnailPath = :thumbnailPath WHERE id = :id")
+    void updateThumbnailPath(long id, String thumbnailPath);
+
+    /**
+     * Marks photos whose saved file is gone, or found again (PhotoReconcileWorker).
+     */
+    @Query("UPDATE photos SET fileMissing = :missing WHERE id IN (:ids)")
+    void setFileMissing(List<Long> ids, boolean missing);
+
+    /**
+     * Forgets the thumbnails and share copies of photos whose file was changed by another app,
+     * so the backfill makes new thumbnails and sharing falls back to the changed original.
+     */
+    @Query("UPDATE photos SET thumbnailPath = NULL, sharePath = NULL WHERE id IN (:ids)")
+    void clearDerivedPaths(List<Long> ids);
+}
@@ -0,0 +1,277 @@
+package com.lunartag.app.data;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.model.PhotoFts;
+import com.lunartag.app.model.PhotoStatus;
+import com.lunartag.app.utils.GeoHash;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes which photos a screen is showing (all, a text search, or photos near a point) and
+ * turns that into SQL. Every query shares the same filter; only the projection and paging differ:
+ * keyset pages on (captureTimestampReal, id), the per-day section index, and pages inside a day.
+ *
+ * NEAR queries never scan the table: candidates come from range scans of the indexed geohash
+ * column over the cells covering the circle, then an equirectangular distance check trims the
+ * corners. Sort and group columns are written with a unary '+' there so SQLite does not pick a
+ * time or day index (a full walk) over the geohash ranges.
+ *
+ * UPDATED: Serializable, so the viewer can be started with just a query and a photo id; it then
+ * pages through the neighbours itself with keyset queries in gallery order (viewerPage()).
+ * Added MODE_PENDING for the dashboard's scheduled strip.
+ */
+public final class PhotoQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MODE_ALL = 0;
+    public static final int MODE_SEARCH = 1;
+    public static final int MODE_NEAR = 2;
+    public static final int MODE_PENDING = 3;
+
+    public final int mode;
+    public final String match; // FTS MATCH expression (MODE_SEARCH)
+    public final double lat; // Centre (MODE_NEAR)
+    public final double lon;
+    public final double radiusMeters;
+    public final String label; // Human readable description, e.g. "within 500 m of Main Office"
+
+    private PhotoQuery(int mode, String match, double lat, double lon, double radiusMeters, String label) {
+        this.mode = mode;
+        this.match = match;
+        this.lat = lat;
+        this.lon = lon;
+        this.radiusMeters = radiusMeters;
+        this.label = label;
+    }
+
+    public static PhotoQuery all() {
+        return new PhotoQuery(MODE_ALL, null, 0, 0, 0, "All photos");
+    }
+
+    /**
+     * Free-text search; falls back to all photos when the text has no searchable words.
+     */
+    public static PhotoQuery search(String text) {
+        String match = PhotoFts.toMatchQuery(text);
+        if (match == null) return all();
+        return new PhotoQuery(MODE_SEARCH, match, 0, 0, 0, "Matching \"" + text.trim() + "\"");
+    }
+
+    public static PhotoQuery near(double lat, double lon, double radiusMeters, String placeName) {
+        return new PhotoQuery(MODE_NEAR, null, lat, lon, radiusMeters,
+                "Within " + formatDistance(radiusMeters) + " of " + placeName);
+    }
+
+    /**
+     * Photos still waiting to be sent.
+     */
+    public static PhotoQuery pending() {
+        return new PhotoQuery(MODE_PENDING, null, 0, 0, 0, "Scheduled photos");
+    }
+
+    // --- Keyset pages (newest first) ---
+
+    /**
+     * Builds the query for one keyset page.
+     * @param afterTimestamp captureTimestampReal of the last photo of the previous page,
+     *                       or Long.MAX_VALUE for the first page.
+     * @param afterId id of the last photo of the previous page, or Long.MAX_VALUE.
+     * @param limit Page size.
+     */
+    public SimpleSQLiteQuery page(long afterTimestamp, long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT photos.* ");
+        appendFilter(sql, args);
+
+        String ts = column("captureTimestampReal");
+        sql.append(" AND (").append(ts).append(" < ? OR (").append(ts).append(" = ? AND photos.id < ?))");
+        args.add(afterTimestamp);
+        args.add(afterTimestamp);
+        args.add(afterId);
+
+        sql.append(" ORDER BY ").append(ts).append(" DESC, photos.id DESC LIMIT ?");
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Convenience for the first page.
+     */
+    public SimpleSQLiteQuery firstPage(int limit) {
+        return page(Long.MAX_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Convenience for the page following the given photo.
+     */
+    public SimpleSQLiteQuery pageAfter(Photo last, int limit) {
+        return page(last.getCaptureTimestampReal(), last.getId(), limit);
+    }
+
+    // --- Day sections ---
+
+    /**
+     * One row per local capture day ("day", "count"), newest day first.
+     * For the unfiltered library this reads the small 'capture_daily_stats' summary table.
+     */
+    public SimpleSQLiteQuery daySections() {
+        if (mode == MODE_ALL) {
+            return new SimpleSQLiteQuery("SELECT day, SUM(photoCount) AS count FROM capture_daily_stats " +
+                    "GROUP BY day ORDER BY day DESC");
+        }
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(column("captureDay")).append(" AS day, COUNT(*) AS count ");
+        appendFilter(sql, args);
+        sql.append(" GROUP BY 1 ORDER BY 1 DESC");
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * A slice of one day, in the same order as the gallery shows it. The offset is relative to
+     * the start of the day, so any day can be loaded without touching the days before it.
+     */
+    public SimpleSQLiteQuery dayPage(String day, int offset, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT photos.* ");
+        appendFilter(sql, args);
+        sql.append(" AND ").append(column("captureDay")).append(" = ?");
+        args.add(day);
+        sql.append(" ORDER BY ").append(column("captureTimestampReal")).append(" DESC, photos.id DESC LIMIT ? OFFSET ?");
+        args.add(limit);
+        args.add(offset);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * IDs and file paths of every matching photo, in gallery order (day, then time, newest first).
+     * Only id and filePath are filled in on the returned Photo objects.
+     */
+    public SimpleSQLiteQuery idsAndPaths() {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT photos.id, photos.filePath ");
+        appendFilter(sql, args);
+        sql.append(" ORDER BY ").append(column("captureDay")).append(" DESC, ")
+           .append(column("captureTimestampReal")).append(" DESC, photos.id DESC");
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    // --- Viewer cursor (gallery order) ---
+
+    /**
+     * Number of matching photos.
+     */
+    public SimpleSQLiteQuery count() {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) ");
+        appendFilter(sql, args);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Number of matching photos shown before the given one in gallery order, i.e. its position.
+     */
+    public SimpleSQLiteQuery positionOf(Photo photo) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) ");
+        appendFilter(sql, args);
+        appendViewerKey(sql, args, ">", photo);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Up to limit photos right after (forward) or right before (backward) the anchor in gallery
+     * order, as a keyset seek on (captureDay, captureTimestampReal, id). Backward pages come
+     * nearest first. Only the columns the viewer needs are filled in.
+     */
+    public SimpleSQLiteQuery viewerPage(Photo anchor, boolean forward, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT photos.id, photos.filePath, photos.thumbnailPath, " +
+                "photos.captureDay, photos.captureTimestampReal, photos.fileMissing, photos.sharePath ");
+        appendFilter(sql, args);
+        appendViewerKey(sql, args, forward ? "<" : ">", anchor);
+        String direction = forward ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(column("captureDay")).append(direction).append(", ")
+           .append(column("captureTimestampReal")).append(direction).append(", photos.id").append(direction)
+           .append(" LIMIT ?");
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Appends a row-value comparison against the photo's sort key (SQLite 3.15+, API 26 has 3.18).
+     */
+    private void appendViewerKey(StringBuilder sql, List<Object> args, String operator, Photo photo) {
+        sql.append(" AND (").append(column("captureDay")).append(", ").append(column("captureTimestampReal"))
+           .append(", photos.id) ").append(operator).append(" (?, ?, ?)");
+        args.add(photo.getCaptureDay());
+        args.add(photo.getCaptureTimestampReal());
+        args.add(photo.getId());
+    }
+
+    // --- Shared pieces ---
+
+    /**
+     * Appends "FROM ... WHERE <filter>" for this query's mode.
+     */
+    private void appendFilter(StringBuilder sql, List<Object> args) {
+        switch (mode) {
+            case MODE_SEARCH:
+                sql.append("FROM photos JOIN photos_fts ON photos.id = photos_fts.rowid WHERE photos_fts MATCH ?");
+                args.add(match);
+                break;
+
+            case MODE_NEAR:
+                sql.append("FROM photos WHERE (");
+                Set<String> cells = GeoHash.coveringCells(lat, lon, radiusMeters);
+                boolean first = true;
+                for (String cell : cells) {
+                    if (!first) sql.append(" OR ");
+                    // '{' sorts right after 'z', the last geohash character
+                    sql.append("(photos.geohash >= ? AND photos.geohash < ?)");
+                    args.add(cell);
+                    args.add(cell + "{");
+                    first = false;
+                }
+                double kLat = GeoHash.metersPerDegreeLat();
+                double kLon = GeoHash.metersPerDegreeLon(lat);
+                sql.append(") AND ((photos.lat - ?) * (photos.lat - ?) * ? + (photos.lon - ?) * (photos.lon - ?) * ?) <= ?");
+                args.add(lat);
+                args.add(lat);
+                args.add(kLat * kLat);
+                args.add(lon);
+                args.add(lon);
+                args.add(kLon * kLon);
+                args.add(radiusMeters * radiusMeters);
+                break;
+
+            case MODE_PENDING:
+                sql.append("FROM photos WHERE photos.status = ").append(PhotoStatus.CODE_PENDING);
+                break;
+
+            default:
+                sql.append("FROM photos WHERE 1");
+                break;
+        }
+    }
+
+    /**
+     * Qualified column name; for NEAR queries prefixed with '+' to keep SQLite on the geohash index.
+     */
+    private String column(String name) {
+        return (mode == MODE_NEAR ? "+photos." : "photos.") + name;
+    }
+
+    private static String formatDistance(double meters) {
+        if (meters >= 1000) {
+            return (meters % 1000 == 0 ? String.valueOf((long) (meters / 1000)) : String.valueOf(meters / 1000)) + " km";
+        }
+        return (long) meters + " m";
+    }
+}
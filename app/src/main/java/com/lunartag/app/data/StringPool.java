@@ -0,0 +1,87 @@
+package com.lunartag.app.data;
+
+import android.database.Cursor;
+
+import androidx.room.ProvidedTypeConverter;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverter;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns repeated photo strings into the 'photo_strings' lookup table.
+ * Used as a field-level type converter on Photo, so entity fields stay plain Strings in Java
+ * while the columns hold small integer ids. The whole table is a handful of rows (one per
+ * distinct company, watermark or shift time), so it is mirrored in memory and reading photos
+ * never costs an extra query.
+ *
+ * Interning runs inside Room's insert/update of the photo, on the same connection and
+ * transaction. No lock is held around database calls: a concurrent intern of the same value
+ * is resolved by the UNIQUE index (INSERT OR IGNORE, then read the id back).
+ */
+@ProvidedTypeConverter
+public class StringPool {
+
+    private final Map<String, Long> idsByValue = new ConcurrentHashMap<>();
+    private final Map<Long, String> valuesById = new ConcurrentHashMap<>();
+    private volatile RoomDatabase database;
+    private volatile boolean loaded = false;
+
+    /**
+     * Binds the pool to its database. Called right after the database is built, because the
+     * builder needs the converter instance first.
+     */
+    void attach(RoomDatabase database) {
+        this.database = database;
+    }
+
+    @TypeConverter
+    public Long toId(String value) {
+        if (value == null) return null;
+        Long id = idsByValue.get(value);
+        if (id != null) return id;
+
+        loadIfNeeded();
+        id = idsByValue.get(value);
+        if (id != null) return id;
+
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        db.execSQL("INSERT OR IGNORE INTO photo_strings (value) VALUES (?)", new Object[]{value});
+        try (Cursor cursor = db.query("SELECT id FROM photo_strings WHERE value = ?", new Object[]{value})) {
+            if (!cursor.moveToFirst()) return null;
+            id = cursor.getLong(0);
+        }
+        remember(id, value);
+        return id;
+    }
+
+    @TypeConverter
+    public String fromId(Long id) {
+        if (id == null) return null;
+        String value = valuesById.get(id);
+        if (value != null) return value;
+
+        // Not seen yet (first read, or a row added by a restored backup): refresh the mirror
+        loaded = false;
+        loadIfNeeded();
+        return valuesById.get(id);
+    }
+
+    private void loadIfNeeded() {
+        if (loaded) return;
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        try (Cursor cursor = db.query("SELECT id, value FROM photo_strings")) {
+            while (cursor.moveToNext()) {
+                remember(cursor.getLong(0), cursor.getString(1));
+            }
+        }
+        loaded = true;
+    }
+
+    private void remember(long id, String value) {
+        idsByValue.put(value, id);
+        valuesById.put(id, value);
+    }
+}
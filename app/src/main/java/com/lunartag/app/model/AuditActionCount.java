@@ -0,0 +1,11 @@
+package com.lunartag.app.model;
+
+/**
+ * Lightweight result row for "count per action" queries on the 'audit_logs' table.
+ * Not an entity; Room maps the query columns onto these fields by name.
+ */
+public class AuditActionCount {
+
+    public String action;
+    public int count;
+}
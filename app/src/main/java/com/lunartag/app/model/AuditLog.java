@@ -1,13 +1,16 @@
 package com.lunartag.app.model;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * A data model class that represents an audit log record in the local Room database.
  * An entry is created for every critical action performed in the app.
+ * UPDATED: Indexed on photoId and timestamp for per-photo lookups and retention compaction.
  */
-@Entity(tableName = "audit_logs")
+@Entity(tableName = "audit_logs",
+        indices = {@Index("photoId"), @Index("timestamp")})
 public class AuditLog {
 
     @PrimaryKey(autoGenerate = true)
@@ -0,0 +1,25 @@
+package com.lunartag.app.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * One row of the 'capture_daily_stats' summary table: totals for one local day and workplace.
+ * The table is never written from Java. SQL triggers on 'photos' (see AppDatabase) keep it
+ * up to date on every insert, update and delete, so the dashboard reads a handful of rows
+ * instead of scanning the whole photo library.
+ */
+@Entity(tableName = "capture_daily_stats",
+        primaryKeys = {"day", "workplace"})
+public class CaptureDailyStat {
+
+    @NonNull
+    public String day = ""; // Local calendar day, "yyyy-MM-dd"
+
+    @NonNull
+    public String workplace = ""; // Empty when no workplace was active
+
+    public int photoCount;
+    public long bytesTotal;
+    public long latencyTotalMs;
+}
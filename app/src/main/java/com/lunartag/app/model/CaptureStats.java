@@ -0,0 +1,17 @@
+package com.lunartag.app.model;
+
+/**
+ * Aggregated capture totals returned by the CaptureStatsDao queries.
+ * 'label' is the day or the workplace the row was grouped by, depending on the query.
+ */
+public class CaptureStats {
+
+    public String label;
+    public int photoCount;
+    public long bytesTotal;
+    public long latencyTotalMs;
+
+    public long getAverageLatencyMs() {
+        return photoCount > 0 ? latencyTotalMs / photoCount : 0;
+    }
+}
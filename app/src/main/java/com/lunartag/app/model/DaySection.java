@@ -0,0 +1,11 @@
+package com.lunartag.app.model;
+
+/**
+ * One day of the gallery timeline: the local capture day and how many photos it holds.
+ * Returned by PhotoQuery.daySections(); not an entity.
+ */
+public class DaySection {
+
+    public String day; // "yyyy-MM-dd"
+    public int count;
+}
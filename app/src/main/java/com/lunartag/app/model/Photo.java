@@ -1,14 +1,30 @@
 package com.lunartag.app.model;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+
+import com.lunartag.app.data.StringPool;
+
 import java.util.Date;
 
 /**
  * A data model class that represents a photo record in the local Room database.
  * This object is saved locally on the device for every captured photo.
+ * UPDATED: Records workplace, local capture day, file size and capture latency for the
+ * dashboard statistics, and indexes captureTimestampReal and status for the dashboard queries.
+ * UPDATED: Stores an indexed geohash of lat/lon for "photos near here" lookups.
+ * UPDATED: (captureDay, captureTimestampReal) index for the day-sectioned gallery timeline.
+ * UPDATED: Compact storage. Status is a PhotoStatus stored as an integer code; shift times,
+ * watermark and company name are ids into 'photo_strings' (via StringPool). The getters and
+ * setters still take plain values.
+ * UPDATED: Path of the small grid thumbnail written at capture time (PhotoThumbnails).
  */
-@Entity(tableName = "photos")
+@Entity(tableName = "photos",
+        indices = {@Index("captureTimestampReal"), @Index("status"), @Index("geohash"),
+                @Index({"captureDay", "captureTimestampReal"})})
 public class Photo {
 
     @PrimaryKey(autoGenerate = true)
@@ -21,13 +37,29 @@ public class Photo {
     private double lon;
     private double accuracyMeters;
     private String addressHuman;
+    @ColumnInfo(name = "shiftStartId")
+    @TypeConverters(StringPool.class)
     private String shiftStart;
+    @ColumnInfo(name = "shiftEndId")
+    @TypeConverters(StringPool.class)
     private String shiftEnd;
+    @ColumnInfo(name = "watermarkId")
+    @TypeConverters(StringPool.class)
     private String watermarkName;
+    @ColumnInfo(name = "companyId")
+    @TypeConverters(StringPool.class)
     private String companyName;
     private long sendScheduledAt; // Stored as long (milliseconds) for Room
-    private String status; // e.g., "PENDING", "SENT", "FAILED"
+    private PhotoStatus status = PhotoStatus.PENDING; // Stored as PhotoStatus.code
     private long createdAt; // Stored as long (milliseconds) for Room
+    private String workplaceName; // Active workplace at capture time, null if none
+    private String captureDay; // Local calendar day of the capture, "yyyy-MM-dd"
+    private long fileSizeBytes; // Size of the saved JPEG
+    private long captureLatencyMs; // From shutter request to file written
+    private String geohash; // GeoHash.STORAGE_PRECISION cell of lat/lon, null if no location
+    private String thumbnailPath; // Grid thumbnail; null until created, "" if the photo was unreadable
+    private boolean fileMissing; // Saved file no longer found (set by PhotoReconcileWorker)
+    private String sharePath; // Downscaled copy for sharing; null if the original is shared
 
     // --- Getters and Setters for all fields ---
 
@@ -135,11 +167,11 @@ public class Photo {
         this.sendScheduledAt = sendScheduledAt;
     }
 
-    public String getStatus() {
+    public PhotoStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(PhotoStatus status) {
         this.status = status;
     }
 
@@ -150,4 +182,68 @@ public class Photo {
     public void setCreatedAt(long createdAt) {
         this.createdAt = createdAt;
     }
-}
\ No newline at end of file
+
+    public String getWorkplaceName() {
+        return workplaceName;
+    }
+
+    public void setWorkplaceName(String workplaceName) {
+        this.workplaceName = workplaceName;
+    }
+
+    public String getCaptureDay() {
+        return captureDay;
+    }
+
+    public void setCaptureDay(String captureDay) {
+        this.captureDay = captureDay;
+    }
+
+    public long getFileSizeBytes() {
+        return fileSizeBytes;
+    }
+
+    public void setFileSizeBytes(long fileSizeBytes) {
+        this.fileSizeBytes = fileSizeBytes;
+    }
+
+    public long getCaptureLatencyMs() {
+        return captureLatencyMs;
+    }
+
+    public void setCaptureLatencyMs(long captureLatencyMs) {
+        this.captureLatencyMs = captureLatencyMs;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public boolean isFileMissing() {
+        return fileMissing;
+    }
+
+    public void setFileMissing(boolean fileMissing) {
+        this.fileMissing = fileMissing;
+    }
+
+    public String getSharePath() {
+        return sharePath;
+    }
+
+    public void setSharePath(String sharePath) {
+        this.sharePath = sharePath;
+    }
+}
@@ -0,0 +1,44 @@
+package com.lunartag.app.model;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+import java.util.Locale;
+
+/**
+ * Full-text index over the searchable text of each photo ('photos_fts', FTS4).
+ * The rowid is the photo id. Rows are kept in sync with 'photos' by SQL triggers
+ * (see AppDatabase); existing photos are indexed by SearchIndexWorker.
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "photos_fts")
+public class PhotoFts {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    public long rowid;
+
+    public String addressHuman;
+    public String workplaceName;
+    public String companyName;
+
+    /**
+     * Turns free text typed by the user into an FTS MATCH expression where every word is a
+     * prefix term, e.g. "mg roa" -> "mg* roa*". Words are ANDed. Punctuation is dropped so
+     * user input can never produce an FTS syntax error.
+     * @return The MATCH expression, or null if the input has no searchable words.
+     */
+    public static String toMatchQuery(String input) {
+        if (input == null) return null;
+        StringBuilder match = new StringBuilder();
+        for (String token : input.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(token).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lunartag.app.model;
+
+/**
+ * Delivery state of a photo.
+ * Stored in 'photos.status' as a small integer code (see Converters) instead of the name,
+ * which keeps every row and the status index compact. Codes are persisted: never reorder
+ * or reuse them, only add new ones.
+ */
+public enum PhotoStatus {
+    PENDING(PhotoStatus.CODE_PENDING),
+    SENT(PhotoStatus.CODE_SENT),
+    FAILED(PhotoStatus.CODE_FAILED);
+
+    // Compile-time constants so they can be used inside @Query strings
+    public static final int CODE_PENDING = 0;
+    public static final int CODE_SENT = 1;
+    public static final int CODE_FAILED = 2;
+
+    public final int code;
+
+    PhotoStatus(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Maps a stored code back to the status. Unknown codes read as PENDING, so a row written
+     * by a newer app version is retried rather than lost.
+     */
+    public static PhotoStatus fromCode(int code) {
+        for (PhotoStatus status : values()) {
+            if (status.code == code) return status;
+        }
+        return PENDING;
+    }
+}
@@ -0,0 +1,23 @@
+package com.lunartag.app.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One row of the 'photo_strings' lookup table.
+ * Values that repeat on almost every photo (company, watermark, shift times) are stored here
+ * once and referenced from 'photos' by id. Rows are only ever added, never changed or removed,
+ * so an id always means the same text. Managed by StringPool; not used directly.
+ */
+@Entity(tableName = "photo_strings",
+        indices = {@Index(value = "value", unique = true)})
+public class PhotoString {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @NonNull
+    public String value = "";
+}
@@ -14,6 +14,8 @@ import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
 import android.widget.Toast;
 
+import com.lunartag.app.utils.LogBuffer;
+
 import java.util.List;
 
 public class LunarTagAccessibilityService extends AccessibilityService {
@@ -489,15 +491,8 @@ public class LunarTagAccessibilityService extends AccessibilityService {
     private void performBroadcastLog(String msg) {
         try {
             System.out.println("LUNARTAG_LOG: " + msg);
-            String type = "info";
-            if (msg != null && (msg.toLowerCase().contains("error") || msg.toLowerCase().contains("fail") || msg.toLowerCase().contains("missing"))) {
-                type = "error";
-            }
-            Intent intent = new Intent("com.lunartag.ACTION_LOG_UPDATE");
-            intent.putExtra("log_msg", msg);
-            intent.putExtra("log_type", type);
-            intent.setPackage(getPackageName());
-            getApplicationContext().sendBroadcast(intent);
+            // The service runs in the app process, so the live log is a direct in-process call
+            LogBuffer.log(msg);
         } catch (Exception e) {}
     }
 
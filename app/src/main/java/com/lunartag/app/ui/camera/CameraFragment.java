@@ -24,6 +24,8 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
 import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -34,6 +36,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageCapture;
@@ -47,17 +50,26 @@ import androidx.fragment.app.Fragment;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.AuditLogger;
 import com.lunartag.app.data.ManualLocationDao;
 import com.lunartag.app.data.PhotoDao;
 import com.lunartag.app.databinding.FragmentCameraBinding;
 import com.lunartag.app.model.ManualLocation;
 import com.lunartag.app.model.Photo;
+import com.lunartag.app.model.PhotoStatus;
 import com.lunartag.app.ui.admin.ManualLocationDialog;
+import com.lunartag.app.utils.EncodingProfile;
+import com.lunartag.app.utils.ExifWriter;
+import com.lunartag.app.utils.GeoHash;
 import com.lunartag.app.utils.GeocodingUtils;
 import com.lunartag.app.utils.ImageUtils;
 import com.lunartag.app.utils.LocationProvider;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.PhotoThumbnails;
 import com.lunartag.app.utils.Scheduler;
+import com.lunartag.app.utils.ShareVariants;
 import com.lunartag.app.utils.StorageUtils;
+import com.lunartag.app.utils.ThumbnailPack;
 import com.lunartag.app.utils.WatermarkUtils;
 
 import org.json.JSONArray;
@@ -67,8 +79,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -345,26 +357,11 @@ public class CameraFragment extends Fragment {
     }
     // --------------------------------------
 
-    // --- DEBUG CONSOLE HELPER (UPDATED FOR BROADCAST) ---
+    // --- DEBUG CONSOLE HELPER (UPDATED FOR IN-PROCESS LOG BUFFER) ---
     private void logToScreen(String message) {
-        if (getContext() == null) return;
-
-        // Determine if this is an error or info
-        String type = "info";
-        String lowerMsg = message.toLowerCase();
-        if (lowerMsg.contains("error") || lowerMsg.contains("fail") || lowerMsg.contains("missing") || lowerMsg.contains("warning")) {
-            type = "error";
-        }
-
-        // Broadcast the log to MainActivity
-        Intent intent = new Intent("com.lunartag.ACTION_LOG_UPDATE");
-        intent.putExtra("log_msg", message);
-        intent.putExtra("log_type", type);
-        intent.setPackage(requireContext().getPackageName());
-        requireContext().sendBroadcast(intent);
-
-        // Also print to system log for ADB debugging
-        Log.d("LunarTagLive", message); 
+        // Severity is derived from the wording (error/fail/missing/warning).
+        // Goes straight into the LogBuffer ring; no Intent broadcast per line.
+        LogBuffer.log(message);
     }
     // --------------------------------------------
 
@@ -376,8 +373,10 @@ public class CameraFragment extends Fragment {
                 ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
                 Preview preview = new Preview.Builder().build();
                 preview.setSurfaceProvider(binding.cameraPreview.getSurfaceProvider());
+                // Capture resolution of the selected output profile (applies from the next start)
                 imageCapture = new ImageCapture.Builder()
                         .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                        .setResolutionSelector(EncodingProfile.current(requireContext()).resolutionSelector())
                         .build();
                 CameraSelector cameraSelector = new CameraSelector.Builder()
                         .requireLensFacing(lensFacing)
@@ -413,11 +412,14 @@ public class CameraFragment extends Fragment {
         Toast.makeText(getContext(), "Capturing...", Toast.LENGTH_SHORT).show();
         logToScreen("System: Requesting image from sensor...");
 
+        // Start of the capture latency measurement (shutter request -> file written)
+        final long captureRequestedAt = SystemClock.elapsedRealtime();
+
         imageCapture.takePicture(cameraExecutor, new ImageCapture.OnImageCapturedCallback() {
             @Override
             public void onCaptureSuccess(@NonNull ImageProxy image) {
                 logToScreen("System: Image sensor capture SUCCESS.");
-                processAndSaveImage(image);
+                processAndSaveImage(image, captureRequestedAt);
             }
 
             @Override
@@ -428,7 +430,7 @@ public class CameraFragment extends Fragment {
         });
     }
 
-    private void processAndSaveImage(ImageProxy imageProxy) {
+    private void processAndSaveImage(ImageProxy imageProxy, long captureRequestedAt) {
         try {
             logToScreen("System: Converting YUV to Bitmap...");
             Bitmap bitmap = ImageUtils.imageProxyToBitmap(imageProxy);
@@ -541,26 +543,60 @@ public class CameraFragment extends Fragment {
 
                 // --- STORAGE LOGIC ---
                 String absolutePath = null;
-                logToScreen("System: Saving File...");
+                EncodingProfile profile = EncodingProfile.current(requireContext());
+                // EXIF written into the JPEG as it is encoded: capture time, location, audit description,
+                // and a small thumbnail so galleries (and our viewer) can preview without a full decode
+                ExifWriter exif = new ExifWriter()
+                        .setCaptureTime(realTime)
+                        .setDescription("{\"assignedTimestamp\":" + assignedTime
+                                + ",\"captureTimestampReal\":" + realTime + "}");
+                if (finalLat != 0.0 || finalLon != 0.0) {
+                    exif.setLocation(finalLat, finalLon);
+                }
+                if (profile.isJpeg()) exif.setThumbnail(bitmap);
+                logToScreen("System: Saving File (" + profile.getLabel() + ")...");
+                final long encodeStartedAt = SystemClock.elapsedRealtime();
 
                 // 1. Check if user selected a custom folder
                 if (StorageUtils.hasCustomFolder(getContext())) {
                     logToScreen("Storage: Using User-Selected Folder (SD/External).");
-                    absolutePath = StorageUtils.saveImageToCustomFolder(getContext(), bitmap, "LunarTag_" + realTime);
+                    absolutePath = StorageUtils.saveImageToCustomFolder(getContext(), bitmap, "LunarTag_" + realTime, exif, profile);
                 } 
-                // 2. Fallback to Default Internal
+                // 2. Default: the public gallery, encoded once straight into MediaStore
+                else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    logToScreen("Storage: Using Public Gallery (MediaStore).");
+                    absolutePath = saveImageToMediaStore(getContext(), bitmap, "LunarTag_" + realTime, exif, profile);
+                    if (absolutePath == null) {
+                        logToScreen("Storage: MediaStore failed, using Internal Storage.");
+                        absolutePath = saveImageToInternalStorage(getContext(), bitmap, "LunarTag_" + realTime, exif, profile);
+                    }
+                }
+                // 3. Android 8/9: Internal, plus a copy for the Gallery
                 else {
                     logToScreen("Storage: Using Default Internal Storage.");
-                    absolutePath = saveImageToInternalStorage(getContext(), bitmap, "LunarTag_" + realTime);
+                    absolutePath = saveImageToInternalStorage(getContext(), bitmap, "LunarTag_" + realTime, exif, profile);
                     // If Internal, we also export to Gallery for visibility
                     if (absolutePath != null) {
                         logToScreen("Storage: Exporting copy to Public Gallery...");
-                        exportToPublicGallery(getContext(), absolutePath, "LunarTag_" + realTime);
+                        exportToPublicGallery(getContext(), absolutePath, "LunarTag_" + realTime, profile);
                     }
                 }
 
                 if (absolutePath != null) {
-                    logToScreen("SUCCESS: File Written. (" + absolutePath + ")");
+                    long now = SystemClock.elapsedRealtime();
+                    long captureLatencyMs = now - captureRequestedAt;
+                    long fileSizeBytes = StorageUtils.getFileSize(requireContext(), absolutePath);
+                    profile.recordSave(requireContext(), now - encodeStartedAt, fileSizeBytes);
+                    logToScreen("SUCCESS: File Written. (" + absolutePath + ") in " + captureLatencyMs + " ms, "
+                            + fileSizeBytes / 1024 + " KB");
+
+                    // Grid thumbnail file and packed tile from the bitmap already in memory, instead of re-decoding the JPEG later
+                    String thumbnailPath = PhotoThumbnails.save(getContext(), bitmap, "LunarTag_" + realTime);
+                    byte[] packedTile = ThumbnailPack.encodeTile(bitmap);
+                    // Downscaled copy for sharing, from the same bitmap: no second decode
+                    String sharePath = ShareVariants.isNeeded(bitmap, profile)
+                            ? ShareVariants.save(getContext(), bitmap, "LunarTag_" + realTime, exif)
+                            : null;
 
                     // Create location object for Database
                     Location dbLocation = new Location("temp");
@@ -570,7 +606,13 @@ public class CameraFragment extends Fragment {
                         dbLocation.setAccuracy(sensorLoc.getAccuracy());
                     }
 
-                    savePhotoToDatabase(absolutePath, realTime, assignedTime, dbLocation);
+                    // Workplace for the statistics: the manual workplace name, if one is active
+                    String workplaceName = isManualMode
+                            ? settingsPrefs.getString(ManualLocationDialog.KEY_MANUAL_LOC_1, null)
+                            : null;
+
+                    savePhotoToDatabase(absolutePath, fileSizeBytes, realTime, assignedTime, dbLocation,
+                            finalAddress, companyName, workplaceName, captureLatencyMs, thumbnailPath, sharePath, packedTile);
                     logToScreen("System: Database Updated.");
 
                     // --- ENHANCEMENT: COPY TO CLIPBOARD ---
@@ -659,15 +701,16 @@ public class CameraFragment extends Fragment {
         }
     }
 
-    private String saveImageToInternalStorage(Context context, Bitmap bitmap, String filename) {
+    private String saveImageToInternalStorage(Context context, Bitmap bitmap, String filename,
+                                              ExifWriter exif, EncodingProfile profile) {
         File directory = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
         if (directory == null) {
             logToScreen("ERROR: External Files Dir is null!");
             return null;
         }
-        File file = new File(directory, filename + ".jpg");
+        File file = new File(directory, filename + profile.getExtension());
         try (OutputStream fos = new FileOutputStream(file)) {
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 100, fos);
+            exif.compress(bitmap, profile, fos);
             return file.getAbsolutePath();
         } catch (IOException e) {
             logToScreen("ERROR Saving IO: " + e.getMessage());
@@ -675,7 +718,47 @@ public class CameraFragment extends Fragment {
         }
     }
 
-    private void exportToPublicGallery(Context context, String internalPath, String filename) {
+    /**
+     * Encodes the photo once, directly into a new MediaStore item in Pictures/LunarTag. The item
+     * stays pending (invisible to other apps) until the file is complete, so no private copy or
+     * second write is needed. Returns the item's content URI, or null on failure.
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private String saveImageToMediaStore(Context context, Bitmap bitmap, String filename,
+                                         ExifWriter exif, EncodingProfile profile) {
+        ContentResolver resolver = context.getContentResolver();
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(MediaStore.MediaColumns.DISPLAY_NAME, filename + profile.getExtension());
+        contentValues.put(MediaStore.MediaColumns.MIME_TYPE, profile.getMimeType());
+        contentValues.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + File.separator + "LunarTag");
+        contentValues.put(MediaStore.MediaColumns.IS_PENDING, 1);
+
+        Uri imageUri = resolver.insert(MediaStore.Images.Media.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY), contentValues);
+        if (imageUri == null) {
+            logToScreen("ERROR: MediaStore insert failed.");
+            return null;
+        }
+        try (OutputStream out = resolver.openOutputStream(imageUri)) {
+            if (out == null) throw new IOException("No output stream for " + imageUri);
+            exif.compress(bitmap, profile, out);
+        } catch (IOException e) {
+            logToScreen("ERROR Saving to MediaStore: " + e.getMessage());
+            resolver.delete(imageUri, null, null);
+            return null;
+        }
+
+        // Publish the finished photo
+        contentValues.clear();
+        contentValues.put(MediaStore.MediaColumns.IS_PENDING, 0);
+        resolver.update(imageUri, contentValues, null, null);
+        return imageUri.toString();
+    }
+
+    /**
+     * Android 8/9 only (no pending items there): copies the saved file into the public gallery.
+     * UPDATED: A FileChannel transfer, which the kernel can do without copying through our heap.
+     */
+    private void exportToPublicGallery(Context context, String internalPath, String filename, EncodingProfile profile) {
         if (internalPath == null) return;
         try {
             File internalFile = new File(internalPath);
@@ -683,19 +766,20 @@ public class CameraFragment extends Fragment {
 
             ContentResolver resolver = context.getContentResolver();
             ContentValues contentValues = new ContentValues();
-            contentValues.put(MediaStore.MediaColumns.DISPLAY_NAME, filename + ".jpg");
-            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, "image/jpeg");
-            contentValues.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + File.separator + "LunarTag");
+            contentValues.put(MediaStore.MediaColumns.DISPLAY_NAME, filename + profile.getExtension());
+            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, profile.getMimeType());
 
             Uri imageUri = resolver.insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, contentValues);
 
             if (imageUri != null) {
-                try (OutputStream out = resolver.openOutputStream(imageUri);
-                     InputStream in = new FileInputStream(internalFile)) {
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while ((len = in.read(buffer)) > 0) {
-                        out.write(buffer, 0, len);
+                ParcelFileDescriptor pfd = resolver.openFileDescriptor(imageUri, "w");
+                if (pfd == null) return;
+                try (FileChannel in = new FileInputStream(internalFile).getChannel();
+                     FileChannel out = new ParcelFileDescriptor.AutoCloseOutputStream(pfd).getChannel()) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
                     }
                     logToScreen("Export: Copy Success.");
                 }
@@ -705,23 +789,46 @@ public class CameraFragment extends Fragment {
         }
     }
 
-    private void savePhotoToDatabase(String filePath, long realTime, long assignedTime, Location loc) {
+    private void savePhotoToDatabase(String filePath, long fileSizeBytes, long realTime, long assignedTime, Location loc,
+                                     String address, String companyName, String workplaceName,
+                                     long captureLatencyMs, String thumbnailPath, String sharePath,
+                                     byte[] packedTile) {
         try {
             Photo photo = new Photo();
             photo.setFilePath(filePath); 
+            photo.setThumbnailPath(thumbnailPath);
+            photo.setSharePath(sharePath);
             photo.setCaptureTimestampReal(realTime);
+            photo.setCaptureDay(new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(realTime)));
+            // Searchable text, mirrored into photos_fts by trigger
+            photo.setAddressHuman(address);
+            photo.setCompanyName(companyName);
+            photo.setWorkplaceName(workplaceName);
+            photo.setFileSizeBytes(fileSizeBytes);
+            photo.setCaptureLatencyMs(captureLatencyMs);
             photo.setAssignedTimestamp(assignedTime);
             photo.setCreatedAt(System.currentTimeMillis());
-            photo.setStatus("PENDING");
+            photo.setStatus(PhotoStatus.PENDING);
             if (loc != null) {
                 photo.setLat(loc.getLatitude());
                 photo.setLon(loc.getLongitude());
                 photo.setAccuracyMeters(loc.getAccuracy());
+                photo.setGeohash(GeoHash.forPhoto(loc.getLatitude(), loc.getLongitude()));
             }
             AppDatabase db = AppDatabase.getDatabase(getContext());
             PhotoDao dao = db.photoDao();
 
             long id = dao.insertPhoto(photo);
+            ThumbnailPack.get(requireContext()).put(id, packedTile);
+
+            // Audit trail: queued only, written to audit_logs in the background
+            AuditLogger auditLogger = AuditLogger.getInstance(requireContext());
+            auditLogger.log(id, AuditLogger.ACTION_CAPTURE,
+                    "{\"captureTimestampReal\":" + realTime + ",\"lat\":" + photo.getLat() + ",\"lon\":" + photo.getLon() + "}");
+            if (assignedTime != realTime) {
+                auditLogger.log(id, AuditLogger.ACTION_ASSIGN,
+                        "{\"assignedTimestamp\":" + assignedTime + ",\"captureTimestampReal\":" + realTime + "}");
+            }
 
             logToScreen("System: Scheduling Alarm for Photo ID: " + id);
             Scheduler.schedulePhotoSend(
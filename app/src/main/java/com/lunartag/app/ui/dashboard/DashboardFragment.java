@@ -7,6 +7,8 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,20 +18,36 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.CaptureStatsDao;
 import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.data.PhotoQuery;
 import com.lunartag.app.databinding.FragmentDashboardBinding;
+import com.lunartag.app.model.CaptureStats;
 import com.lunartag.app.model.Photo;
 import com.lunartag.app.ui.gallery.GalleryAdapter;
+import com.lunartag.app.ui.gallery.TilePreloader;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.PhotoThumbnails;
 import com.lunartag.app.utils.Scheduler;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+/**
+ * Home screen: shift status, capture statistics, scheduled sends and recent photos.
+ * NEW: Capture statistics card, read from the trigger-maintained 'capture_daily_stats' table,
+ * so opening the dashboard never scans the photo library.
+ * UPDATED: Both photo strips share one pool of tile views and take diffed lists, and the time
+ * from opening the screen to the first data on it is written to the live log.
+ */
 public class DashboardFragment extends Fragment {
 
     private FragmentDashboardBinding binding;
@@ -39,6 +57,9 @@ public class DashboardFragment extends Fragment {
     private static final String KEY_IS_SHIFT_ACTIVE = "is_shift_active";
     private static final String KEY_LAST_ACTION_TIME = "last_action_time";
 
+    private static final int STRIP_PRELOAD = 6; // Tiles loaded ahead in each horizontal strip
+    private static final int STRIP_POOL_SIZE = 12; // Recycled tiles kept for both strips together
+
     // --- DB Components ---
     private ExecutorService databaseExecutor;
 
@@ -46,9 +67,8 @@ public class DashboardFragment extends Fragment {
     private GalleryAdapter scheduledAdapter;
     private GalleryAdapter recentAdapter;
 
-    // Data lists
-    private List<Photo> scheduledPhotoList;
-    private List<Photo> recentPhotoList;
+    // Time the view was created, until the first data is shown (0 afterwards)
+    private long openedAtMs = 0;
 
     // Track which adapter is currently in selection mode
     private GalleryAdapter activeSelectionAdapter = null;
@@ -65,20 +85,31 @@ public class DashboardFragment extends Fragment {
 
         // Initialize Executor for DB operations
         databaseExecutor = Executors.newSingleThreadExecutor();
-        scheduledPhotoList = new ArrayList<>();
-        recentPhotoList = new ArrayList<>();
+        openedAtMs = SystemClock.elapsedRealtime();
+
+        // Both strips show the same tile layout, so a tile scrolled out of one can be rebound in
+        // the other instead of inflating a new one
+        RecyclerView.RecycledViewPool stripPool = new RecyclerView.RecycledViewPool();
+        stripPool.setMaxRecycledViews(0, STRIP_POOL_SIZE);
 
         // --- 1. Setup Top Box (Scheduled Sends) ---
         LinearLayoutManager scheduledManager = new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false);
         binding.recyclerViewScheduledSends.setLayoutManager(scheduledManager);
-        scheduledAdapter = new GalleryAdapter(getContext(), scheduledPhotoList);
+        binding.recyclerViewScheduledSends.setRecycledViewPool(stripPool);
+        scheduledAdapter = new GalleryAdapter(getContext());
+        scheduledAdapter.setViewerQuery(PhotoQuery.pending());
         binding.recyclerViewScheduledSends.setAdapter(scheduledAdapter);
+        binding.recyclerViewScheduledSends.addOnScrollListener(
+                TilePreloader.create(this, scheduledAdapter::getPhoto, STRIP_PRELOAD));
 
         // --- 2. Setup Bottom Box (Recent Photos) ---
         LinearLayoutManager recentManager = new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false);
         binding.recyclerViewRecentPhotos.setLayoutManager(recentManager);
-        recentAdapter = new GalleryAdapter(getContext(), recentPhotoList);
+        binding.recyclerViewRecentPhotos.setRecycledViewPool(stripPool);
+        recentAdapter = new GalleryAdapter(getContext());
         binding.recyclerViewRecentPhotos.setAdapter(recentAdapter);
+        binding.recyclerViewRecentPhotos.addOnScrollListener(
+                TilePreloader.create(this, recentAdapter::getPhoto, STRIP_PRELOAD));
 
         // --- 3. Setup Selection Logic ---
         setupSelectionListeners();
@@ -178,6 +209,7 @@ public class DashboardFragment extends Fragment {
                     Scheduler.cancelPhotoSend(getContext(), photo.getId());
 
                     // 3. Delete Physical File
+                    PhotoThumbnails.delete(getContext(), photo);
                     try {
                         String filePath = photo.getFilePath();
                         
@@ -235,20 +267,28 @@ public class DashboardFragment extends Fragment {
             // 2. Get Recent Photos (For Bottom Box) - Limit to 10
             List<Photo> recentPhotos = db.photoDao().getRecentPhotos(10);
 
+            // 3. Get Capture Statistics (summary table only, a few rows per day)
+            SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+            Calendar calendar = Calendar.getInstance();
+            String today = dayFormat.format(calendar.getTime());
+            calendar.add(Calendar.DAY_OF_YEAR, -6);
+            String weekStart = dayFormat.format(calendar.getTime());
+
+            CaptureStatsDao statsDao = db.captureStatsDao();
+            List<CaptureStats> dailyTotals = statsDao.getDailyTotals(weekStart);
+            List<CaptureStats> workplaceTotals = statsDao.getWorkplaceTotals(weekStart);
+            CaptureStats overall = statsDao.getOverallTotals();
+
             // Update UI on Main Thread
             new Handler(Looper.getMainLooper()).post(() -> {
                 if (binding != null) {
-                    // Update Scheduled List
-                    scheduledPhotoList.clear();
-                    if (pendingPhotos != null) {
-                        scheduledPhotoList.addAll(pendingPhotos);
-                    }
+                    // Update Scheduled List (diffed: unchanged tiles are not rebound)
                     if (scheduledAdapter != null) {
-                        scheduledAdapter.notifyDataSetChanged();
+                        scheduledAdapter.submitList(pendingPhotos);
                     }
 
                     // Handle Empty State for Scheduled
-                    if (scheduledPhotoList.isEmpty()) {
+                    if (pendingPhotos == null || pendingPhotos.isEmpty()) {
                         binding.textNoScheduled.setVisibility(View.VISIBLE);
                         binding.recyclerViewScheduledSends.setVisibility(View.GONE);
                     } else {
@@ -257,18 +297,61 @@ public class DashboardFragment extends Fragment {
                     }
 
                     // Update Recent List
-                    recentPhotoList.clear();
-                    if (recentPhotos != null) {
-                        recentPhotoList.addAll(recentPhotos);
-                    }
                     if (recentAdapter != null) {
-                        recentAdapter.notifyDataSetChanged();
+                        recentAdapter.submitList(recentPhotos);
+                    }
+
+                    // Update Statistics Card
+                    showCaptureStats(today, dailyTotals, workplaceTotals, overall);
+
+                    if (openedAtMs != 0) {
+                        LogBuffer.d("Dashboard: data shown " + (SystemClock.elapsedRealtime() - openedAtMs)
+                                + " ms after opening");
+                        openedAtMs = 0;
                     }
                 }
             });
         });
     }
 
+    /**
+     * Fills the statistics card from the summary rows loaded in loadDashboardData().
+     */
+    private void showCaptureStats(String today, List<CaptureStats> dailyTotals,
+                                  List<CaptureStats> workplaceTotals, CaptureStats overall) {
+        CaptureStats todayStats = null;
+        CaptureStats weekStats = new CaptureStats();
+        for (CaptureStats day : dailyTotals) {
+            if (today.equals(day.label)) {
+                todayStats = day;
+            }
+            weekStats.photoCount += day.photoCount;
+            weekStats.bytesTotal += day.bytesTotal;
+            weekStats.latencyTotalMs += day.latencyTotalMs;
+        }
+
+        binding.textStatsToday.setText("Today: " + formatStats(todayStats));
+        binding.textStatsWeek.setText("Last 7 days: " + formatStats(weekStats));
+        binding.textStatsTotal.setText("All time: " + formatStats(overall));
+
+        StringBuilder workplaces = new StringBuilder();
+        for (CaptureStats workplace : workplaceTotals) {
+            if (workplaces.length() > 0) workplaces.append("  ·  ");
+            String name = (workplace.label == null || workplace.label.isEmpty()) ? "GPS" : workplace.label;
+            workplaces.append(name).append(": ").append(workplace.photoCount);
+        }
+        binding.textStatsWorkplaces.setText(workplaces.length() > 0 ? workplaces.toString() : "No captures this week");
+    }
+
+    private String formatStats(CaptureStats stats) {
+        if (stats == null || stats.photoCount == 0) {
+            return "0 photos";
+        }
+        return stats.photoCount + " photos · "
+                + Formatter.formatShortFileSize(getContext(), stats.bytesTotal)
+                + " · avg " + stats.getAverageLatencyMs() + " ms";
+    }
+
     /**
      * Reads the current state from SharedPreferences and updates the Button and Text.
      */
@@ -0,0 +1,199 @@
+package com.lunartag.app.ui.gallery;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Draggable scroll thumb for the gallery timeline, drawn over the right edge of the grid.
+ * While dragging, a bubble shows the date of the section under the thumb. Jumping uses
+ * scrollToPositionWithOffset, so RecyclerView only binds the rows at the destination and the
+ * pager only loads their chunks.
+ */
+public class DateFastScroller extends View {
+
+    private static final long HIDE_DELAY_MS = 1500;
+
+    /**
+     * Supplies the bubble text for an adapter position.
+     */
+    public interface LabelProvider {
+        String getLabel(int position);
+    }
+
+    private final Paint thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+
+    private final float density;
+    private final float thumbWidth;
+    private final float thumbHeight;
+    private final float touchWidth;
+
+    private RecyclerView recyclerView;
+    private LabelProvider labelProvider;
+
+    private float thumbTop = 0;
+    private boolean isDragging = false;
+    private String bubbleLabel;
+
+    private final Runnable hideRunnable = () -> animate().alpha(0f).setDuration(250).start();
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            if (isDragging || dy == 0) return;
+            updateThumbFromScroll();
+            show();
+        }
+    };
+
+    public DateFastScroller(Context context) {
+        this(context, null);
+    }
+
+    public DateFastScroller(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        density = context.getResources().getDisplayMetrics().density;
+        thumbWidth = 6 * density;
+        thumbHeight = 48 * density;
+        touchWidth = 32 * density;
+
+        thumbPaint.setColor(Color.parseColor("#1A237E"));
+        bubblePaint.setColor(Color.parseColor("#1A237E"));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(14 * context.getResources().getDisplayMetrics().scaledDensity);
+        textPaint.setFakeBoldText(true);
+
+        setAlpha(0f);
+    }
+
+    /**
+     * Binds the scroller to a list whose layout manager is a LinearLayoutManager (or a grid).
+     */
+    public void attachTo(RecyclerView recyclerView, LabelProvider labelProvider) {
+        if (this.recyclerView != null) {
+            this.recyclerView.removeOnScrollListener(scrollListener);
+        }
+        this.recyclerView = recyclerView;
+        this.labelProvider = labelProvider;
+        recyclerView.addOnScrollListener(scrollListener);
+    }
+
+    private void updateThumbFromScroll() {
+        int range = recyclerView.computeVerticalScrollRange();
+        int extent = recyclerView.computeVerticalScrollExtent();
+        int offset = recyclerView.computeVerticalScrollOffset();
+        int scrollable = range - extent;
+        float fraction = scrollable > 0 ? (float) offset / scrollable : 0f;
+        thumbTop = fraction * (getHeight() - thumbHeight);
+        invalidate();
+    }
+
+    private void show() {
+        removeCallbacks(hideRunnable);
+        animate().cancel();
+        setAlpha(1f);
+        if (!isDragging) postDelayed(hideRunnable, HIDE_DELAY_MS);
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (recyclerView == null || recyclerView.getAdapter() == null) return false;
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Only grab touches on the thumb strip, and only while the thumb is showing
+                if (getAlpha() == 0f || event.getX() < getWidth() - touchWidth) return false;
+                isDragging = true;
+                getParent().requestDisallowInterceptTouchEvent(true);
+                recyclerView.stopScroll();
+                show();
+                scrollToY(event.getY());
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                if (!isDragging) return false;
+                scrollToY(event.getY());
+                return true;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (!isDragging) return false;
+                isDragging = false;
+                bubbleLabel = null;
+                getParent().requestDisallowInterceptTouchEvent(false);
+                show();
+                invalidate();
+                return true;
+        }
+        return false;
+    }
+
+    private void scrollToY(float y) {
+        int itemCount = recyclerView.getAdapter().getItemCount();
+        if (itemCount == 0) return;
+
+        float track = getHeight() - thumbHeight;
+        float fraction = track > 0 ? Math.max(0f, Math.min(1f, (y - thumbHeight / 2) / track)) : 0f;
+        thumbTop = fraction * track;
+
+        int position = Math.min(itemCount - 1, (int) (fraction * itemCount));
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+        } else {
+            recyclerView.scrollToPosition(position);
+        }
+
+        bubbleLabel = labelProvider != null ? labelProvider.getLabel(position) : null;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (recyclerView == null) return;
+
+        float right = getWidth() - 4 * density;
+        rect.set(right - thumbWidth, thumbTop, right, thumbTop + thumbHeight);
+        canvas.drawRoundRect(rect, thumbWidth / 2, thumbWidth / 2, thumbPaint);
+
+        if (isDragging && bubbleLabel != null && !bubbleLabel.isEmpty()) {
+            float padding = 12 * density;
+            float textWidth = textPaint.measureText(bubbleLabel);
+            float bubbleHeight = 40 * density;
+            float bubbleRight = right - thumbWidth - 12 * density;
+            float bubbleTop = Math.max(0, Math.min(getHeight() - bubbleHeight,
+                    thumbTop + thumbHeight / 2 - bubbleHeight / 2));
+            rect.set(bubbleRight - textWidth - 2 * padding, bubbleTop, bubbleRight, bubbleTop + bubbleHeight);
+            canvas.drawRoundRect(rect, bubbleHeight / 2, bubbleHeight / 2, bubblePaint);
+
+            Paint.FontMetrics metrics = textPaint.getFontMetrics();
+            float baseline = rect.centerY() - (metrics.ascent + metrics.descent) / 2;
+            canvas.drawText(bubbleLabel, rect.left + padding, baseline, textPaint);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(hideRunnable);
+        if (recyclerView != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.lunartag.app.ui.gallery;
 
 import android.content.Context; 
-import android.content.Intent;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,45 +9,78 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.lunartag.app.R;
+import com.lunartag.app.data.PhotoQuery;
 import com.lunartag.app.model.Photo;
 import com.lunartag.app.ui.viewer.ImageViewerActivity;
+import com.lunartag.app.utils.PhotoThumbnails;
 
-import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
+import java.util.Objects;
+
+/**
+ * Photo strip adapter (dashboard).
+ * UPDATED: Stable ids (photo ids) and a PhotoSelection: selecting only rebinds checkboxes
+ * through a payload, so multi-selecting never reloads a thumbnail.
+ * UPDATED: A ListAdapter. New lists are diffed off the main thread and only tiles whose photo
+ * changed are rebound, so reloading the dashboard on every resume costs nothing when nothing
+ * changed.
+ */
+public class GalleryAdapter extends ListAdapter<Photo, GalleryAdapter.PhotoViewHolder> {
+
+    /**
+     * Same photo if the id matches; same tile if everything the tile shows matches.
+     */
+    private static final DiffUtil.ItemCallback<Photo> DIFF = new DiffUtil.ItemCallback<Photo>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Photo oldItem, @NonNull Photo newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
 
-public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PhotoViewHolder> {
+        @Override
+        public boolean areContentsTheSame(@NonNull Photo oldItem, @NonNull Photo newItem) {
+            return oldItem.getAssignedTimestamp() == newItem.getAssignedTimestamp()
+                    && oldItem.getStatus() == newItem.getStatus()
+                    && oldItem.isFileMissing() == newItem.isFileMissing()
+                    && Objects.equals(oldItem.getFilePath(), newItem.getFilePath())
+                    && Objects.equals(oldItem.getThumbnailPath(), newItem.getThumbnailPath());
+        }
+    };
 
     private final Context context;
-    private final List<Photo> photoList;
     private final SimpleDateFormat timeFormat;
+    private PhotoQuery viewerQuery = PhotoQuery.all();
 
-    // --- Selection Mode Variables ---
-    private boolean isSelectionMode = false;
-    private final Set<Long> selectedIds = new HashSet<>();
-    private OnSelectionChangeListener selectionListener;
+    // --- Selection ---
+    private final PhotoSelection selection = new PhotoSelection(this);
 
     public interface OnSelectionChangeListener {
         void onSelectionChanged(int count);
     }
 
-    public GalleryAdapter(Context context, List<Photo> photoList) {
+    public GalleryAdapter(Context context) {
+        super(DIFF);
         this.context = context;
-        this.photoList = photoList;
         this.timeFormat = new SimpleDateFormat("hh:mm a", Locale.US);
+        setHasStableIds(true);
+    }
+
+    /**
+     * The photos the viewer swipes through when a thumbnail is opened (default: all photos).
+     */
+    public void setViewerQuery(PhotoQuery query) {
+        this.viewerQuery = query;
     }
 
     public void setSelectionListener(OnSelectionChangeListener listener) {
-        this.selectionListener = listener;
+        selection.setListener(listener);
     }
 
     @NonNull
@@ -62,142 +93,85 @@ public class GalleryAdapter extends RecyclerView.Adapter<GalleryAdapter.PhotoVie
 
     @Override
     public void onBindViewHolder(@NonNull PhotoViewHolder holder, int position) {
-        Photo currentPhoto = photoList.get(position);
+        Photo currentPhoto = getItem(position);
 
         // 1. Set Text Data
         holder.timestampTextView.setText(timeFormat.format(currentPhoto.getAssignedTimestamp()));
-        holder.statusTextView.setText(currentPhoto.getStatus());
-
-        // 2. Load Image Efficiently (Thumbnail size)
-        String filePath = currentPhoto.getFilePath();
-
-        // FIXED: Check for Content URI (Custom Folder) vs File Path (Internal)
-        if (filePath != null && filePath.startsWith("content://")) {
-            // It is a Custom Folder URI - Load directly via Glide
-            Glide.with(context)
-                    .load(Uri.parse(filePath))
-                    .override(320, 320) // Render small for grid performance
-                    .centerCrop()
-                    .diskCacheStrategy(DiskCacheStrategy.ALL)
-                    .into(holder.thumbnailImageView);
-        } else {
-            // It is a Default Internal File - Check existence first
-            File imageFile = new File(filePath);
-            if (imageFile.exists()) {
-                Glide.with(context)
-                        .load(Uri.fromFile(imageFile))
-                        .override(320, 320) // Render small for grid performance
-                        .centerCrop()
-                        .diskCacheStrategy(DiskCacheStrategy.ALL)
-                        .into(holder.thumbnailImageView);
-            } else {
-                // Clear image if file missing
-                holder.thumbnailImageView.setImageDrawable(null);
-            }
-        }
+        holder.statusTextView.setText(currentPhoto.isFileMissing() ? "MISSING" : currentPhoto.getStatus().name());
+
+        // 2. Load Image Efficiently (capture-time thumbnail, original as fallback)
+        PhotoThumbnails.loadInto(context, currentPhoto, holder.thumbnailImageView);
 
         // 3. Handle Selection Mode UI
-        if (isSelectionMode) {
-            holder.checkBox.setVisibility(View.VISIBLE);
-            holder.checkBox.setChecked(selectedIds.contains(currentPhoto.getId()));
-        } else {
-            holder.checkBox.setVisibility(View.GONE);
-        }
+        bindSelection(holder, currentPhoto);
 
         // 4. Handle Click Logic
         holder.itemView.setOnClickListener(v -> {
-            if (isSelectionMode) {
-                toggleSelection(currentPhoto.getId());
+            if (selection.isActive()) {
+                selection.toggle(currentPhoto.getId(), holder.getAdapterPosition());
             } else {
-                openImageViewer(position);
+                ImageViewerActivity.open(context, viewerQuery, currentPhoto.getId());
             }
         });
 
         // 5. Handle Long Click (Start Selection Mode)
         holder.itemView.setOnLongClickListener(v -> {
-            if (!isSelectionMode) {
-                isSelectionMode = true;
-                toggleSelection(currentPhoto.getId());
-                notifyDataSetChanged(); // Refresh all items to show checkboxes
+            if (!selection.isActive()) {
+                selection.toggle(currentPhoto.getId(), holder.getAdapterPosition());
                 return true;
             }
             return false;
         });
     }
 
-    private void toggleSelection(long photoId) {
-        if (selectedIds.contains(photoId)) {
-            selectedIds.remove(photoId);
-        } else {
-            selectedIds.add(photoId);
-        }
-
-        // Notify listener (Fragment) to update title or delete button
-        if (selectionListener != null) {
-            selectionListener.onSelectionChanged(selectedIds.size());
-        }
-        
-        // Auto-exit selection mode if nothing is left selected
-        if (selectedIds.isEmpty()) {
-            isSelectionMode = false;
-            notifyDataSetChanged();
+    @Override
+    public void onBindViewHolder(@NonNull PhotoViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (PhotoSelection.isSelectionOnly(payloads)) {
+            bindSelection(holder, getItem(position));
         } else {
-            notifyDataSetChanged();
+            onBindViewHolder(holder, position);
         }
     }
 
-    private void openImageViewer(int position) {
-        // Create Intent to open the full-screen viewer
-        Intent intent = new Intent(context, ImageViewerActivity.class);
-        
-        // We pass the ID of the clicked photo and the current list order
-        // For simplicity in large lists, we might just pass the position and reload query,
-        // but passing the ID list is robust for filtering.
-        
-        ArrayList<String> pathList = new ArrayList<>();
-        ArrayList<Long> idList = new ArrayList<>();
-        
-        for (Photo p : photoList) {
-            pathList.add(p.getFilePath());
-            idList.add(p.getId());
+    private void bindSelection(PhotoViewHolder holder, Photo photo) {
+        if (selection.isActive()) {
+            holder.checkBox.setVisibility(View.VISIBLE);
+            holder.checkBox.setChecked(selection.isSelected(photo.getId()));
+        } else {
+            holder.checkBox.setVisibility(View.GONE);
         }
-
-        intent.putStringArrayListExtra("paths", pathList);
-        intent.putExtra("start_position", position);
-        
-        context.startActivity(intent);
     }
 
     // --- Selection Helpers for Fragment ---
 
     public void selectAll() {
-        isSelectionMode = true;
-        selectedIds.clear();
-        for (Photo p : photoList) {
-            selectedIds.add(p.getId());
+        List<Photo> photos = getCurrentList();
+        List<Long> ids = new ArrayList<>(photos.size());
+        for (Photo p : photos) {
+            ids.add(p.getId());
         }
-        notifyDataSetChanged();
-        if (selectionListener != null) selectionListener.onSelectionChanged(selectedIds.size());
+        selection.selectAll(ids);
     }
 
     public void clearSelection() {
-        isSelectionMode = false;
-        selectedIds.clear();
-        notifyDataSetChanged();
-        if (selectionListener != null) selectionListener.onSelectionChanged(0);
+        selection.clear();
     }
 
     public List<Long> getSelectedIds() {
-        return new ArrayList<>(selectedIds);
+        return selection.getSelectedIds();
     }
     
     public boolean isSelectionMode() {
-        return isSelectionMode;
+        return selection.isActive();
     }
 
     @Override
-    public int getItemCount() {
-        return photoList.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    public Photo getPhoto(int position) {
+        return position >= 0 && position < getItemCount() ? getItem(position) : null;
     }
 
     static class PhotoViewHolder extends RecyclerView.ViewHolder {
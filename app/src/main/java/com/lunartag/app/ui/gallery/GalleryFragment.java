@@ -1,24 +1,41 @@
 package com.lunartag.app.ui.gallery;
 
+import android.Manifest;
+import android.annotation.SuppressLint;
 import android.app.AlertDialog;
+import android.content.Context;
+import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.GridLayoutManager;
 
+import com.google.android.gms.location.LocationServices;
+
 import com.lunartag.app.data.AppDatabase;
 import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.data.PhotoQuery;
 import com.lunartag.app.databinding.FragmentGalleryBinding;
+import com.lunartag.app.model.DaySection;
+import com.lunartag.app.model.ManualLocation;
 import com.lunartag.app.model.Photo;
+import com.lunartag.app.ui.viewer.ImageViewerActivity;
+import com.lunartag.app.utils.FrameStats;
+import com.lunartag.app.utils.PhotoThumbnails;
 import com.lunartag.app.utils.Scheduler;
 
 import java.io.File;
@@ -27,12 +44,52 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+/**
+ * Shows every captured photo in a grid.
+ * NEW: Search box backed by the 'photos_fts' full-text index (prefix match on address,
+ * workplace and company name).
+ * NEW: Place filter (photos within a radius of the current fix or a workplace).
+ * UPDATED: Day-sectioned timeline. The section index (days and counts) is one grouped query;
+ * GalleryPager loads photos per day on demand, and the date fast scroller can jump anywhere.
+ */
 public class GalleryFragment extends Fragment {
 
+    private static final long SEARCH_DEBOUNCE_MS = 200;
+    private static final int SPAN_COUNT = 3;
+
+    // Place filter: fixed entries first, then one entry per workplace
+    private static final int PLACE_ALL = 0;
+    private static final int PLACE_CURRENT_LOCATION = 1;
+    private static final int PLACE_FIRST_WORKPLACE = 2;
+
+    private static final String[] RADIUS_LABELS = {"100 m", "250 m", "500 m", "1 km", "5 km"};
+    private static final int[] RADIUS_METERS = {100, 250, 500, 1000, 5000};
+    private static final int DEFAULT_RADIUS_INDEX = 2;
+
+    private static final int PRELOAD_ROWS = 4;
+
+    private static final String PREFS_TOGGLES = "LunarTagFeatureToggles";
+    private static final String KEY_ADMIN_ENABLED = "customTimestampEnabled";
+
     private FragmentGalleryBinding binding;
-    private GalleryAdapter adapter;
+    private TimelineAdapter adapter;
+    private GalleryPager pager;
+    private FrameStats frameStats;
     private ExecutorService databaseExecutor;
-    private List<Photo> photoList;
+
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::loadPhotos;
+
+    // --- Query State (main thread only) ---
+    private int queryGeneration = 0; // Bumped on every new query so stale results are dropped
+
+    // --- Place Filter State ---
+    private final List<ManualLocation> workplaces = new ArrayList<>();
+    private ArrayAdapter<String> placeAdapter;
+    private int selectedPlace = PLACE_ALL;
+    private double nearLat;
+    private double nearLon;
+    private String nearName;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -46,18 +103,58 @@ public class GalleryFragment extends Fragment {
 
         // Initialize Executor for background DB operations
         databaseExecutor = Executors.newSingleThreadExecutor();
-        photoList = new ArrayList<>();
+        pager = new GalleryPager(AppDatabase.getDatabase(requireContext()).photoDao(), databaseExecutor);
 
-        // Setup the RecyclerView with a GridLayoutManager to show 3 columns
-        GridLayoutManager layoutManager = new GridLayoutManager(getContext(), 3);
-        binding.recyclerViewGallery.setLayoutManager(layoutManager);
-        
         // Initialize adapter
-        adapter = new GalleryAdapter(getContext(), photoList);
+        adapter = new TimelineAdapter(getContext(), pager);
+        adapter.setOnPhotoClickListener(this::openImageViewer);
+
+        // Setup the RecyclerView with a GridLayoutManager to show 3 columns; day headers span the row
+        GridLayoutManager layoutManager = new GridLayoutManager(getContext(), SPAN_COUNT);
+        layoutManager.setSpanSizeLookup(adapter.spanSizeLookup(SPAN_COUNT));
+        binding.recyclerViewGallery.setLayoutManager(layoutManager);
         binding.recyclerViewGallery.setAdapter(adapter);
 
+        // Load the tiles of the next few rows before they scroll into view
+        binding.recyclerViewGallery.addOnScrollListener(
+                TilePreloader.create(this, pager::getPhoto, SPAN_COUNT * PRELOAD_ROWS));
+        // Frame timing costs a live-log line per scroll gesture, so only for admins
+        if (isAdminModeEnabled()) {
+            frameStats = FrameStats.trackScrolling(requireActivity().getWindow(), binding.recyclerViewGallery, "Gallery");
+        }
+
+        // --- Setup Date Fast Scroller ---
+        binding.fastScrollerGallery.attachTo(binding.recyclerViewGallery,
+                position -> adapter.getSectionLabel(pager.sectionForPosition(position)));
+
         // --- Setup Selection Logic ---
         setupSelectionListeners();
+
+        // --- Setup Place Filter ---
+        setupPlaceFilter();
+
+        // --- Setup Search ---
+        binding.editGallerySearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Text search and place filter are separate modes; typing switches back to text
+                if (s.length() > 0 && selectedPlace != PLACE_ALL) {
+                    selectedPlace = PLACE_ALL;
+                    binding.spinnerGalleryPlace.setSelection(PLACE_ALL);
+                }
+                // Wait for a pause in typing before querying
+                uiHandler.removeCallbacks(searchRunnable);
+                uiHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
     }
 
     private void setupSelectionListeners() {
@@ -76,9 +173,20 @@ public class GalleryFragment extends Fragment {
             hideSelectionToolbar();
         });
 
-        // 3. Select All Button
+        // 3. Select All Button (ids come from the database; most rows are never loaded)
         binding.btnSelectAll.setOnClickListener(v -> {
-            adapter.selectAll();
+            final PhotoQuery query = pager.getQuery();
+            databaseExecutor.execute(() -> {
+                List<Photo> rows = AppDatabase.getDatabase(getContext()).photoDao().getPhotoPage(query.idsAndPaths());
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (Photo p : rows) {
+                    ids.add(p.getId());
+                }
+                uiHandler.post(() -> {
+                    if (binding == null || query != pager.getQuery()) return;
+                    adapter.selectAll(ids);
+                });
+            });
         });
 
         // 4. Delete Button (Trash Icon)
@@ -122,6 +230,7 @@ public class GalleryFragment extends Fragment {
                     Scheduler.cancelPhotoSend(getContext(), photo.getId());
 
                     // 2. Delete Physical File
+                    PhotoThumbnails.delete(getContext(), photo);
                     try {
                         String filePath = photo.getFilePath();
 
@@ -164,39 +273,170 @@ public class GalleryFragment extends Fragment {
         loadPhotos();
     }
 
+    private void setupPlaceFilter() {
+        placeAdapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_item, new ArrayList<>());
+        placeAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        placeAdapter.add("All places");
+        placeAdapter.add("Near my location");
+        binding.spinnerGalleryPlace.setAdapter(placeAdapter);
+
+        ArrayAdapter<String> radiusAdapter = new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_item, RADIUS_LABELS);
+        radiusAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        binding.spinnerGalleryRadius.setAdapter(radiusAdapter);
+        binding.spinnerGalleryRadius.setSelection(DEFAULT_RADIUS_INDEX);
+        binding.spinnerGalleryRadius.setEnabled(false);
+
+        binding.spinnerGalleryPlace.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (position == selectedPlace) return;
+                selectPlace(position);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        binding.spinnerGalleryRadius.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (selectedPlace != PLACE_ALL) loadPhotos();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        // Workplaces are few; load them once for the dropdown
+        databaseExecutor.execute(() -> {
+            if (getContext() == null) return;
+            List<ManualLocation> loaded = AppDatabase.getDatabase(getContext()).manualLocationDao().getAllLocations();
+            uiHandler.post(() -> {
+                if (binding == null || loaded == null) return;
+                workplaces.clear();
+                workplaces.addAll(loaded);
+                for (ManualLocation workplace : loaded) {
+                    placeAdapter.add("Near " + workplace.getLocationName());
+                }
+            });
+        });
+    }
+
+    @SuppressLint("MissingPermission") // Checked below
+    private void selectPlace(int position) {
+        if (position == PLACE_CURRENT_LOCATION) {
+            boolean granted = ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED
+                    || ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+            if (!granted) {
+                Toast.makeText(getContext(), "Location permission is required.", Toast.LENGTH_SHORT).show();
+                binding.spinnerGalleryPlace.setSelection(selectedPlace);
+                return;
+            }
+            LocationServices.getFusedLocationProviderClient(requireContext()).getLastLocation()
+                    .addOnSuccessListener(location -> {
+                        if (binding == null) return;
+                        if (location == null) {
+                            Toast.makeText(getContext(), "No location fix yet. Try again in a moment.", Toast.LENGTH_SHORT).show();
+                            binding.spinnerGalleryPlace.setSelection(selectedPlace);
+                            return;
+                        }
+                        applyPlace(PLACE_CURRENT_LOCATION, location.getLatitude(), location.getLongitude(), "my location");
+                    });
+        } else if (position >= PLACE_FIRST_WORKPLACE && position - PLACE_FIRST_WORKPLACE < workplaces.size()) {
+            ManualLocation workplace = workplaces.get(position - PLACE_FIRST_WORKPLACE);
+            applyPlace(position, workplace.getLatitude(), workplace.getLongitude(), workplace.getLocationName());
+        } else {
+            applyPlace(PLACE_ALL, 0, 0, null);
+        }
+    }
+
+    private void applyPlace(int position, double lat, double lon, String name) {
+        selectedPlace = position;
+        nearLat = lat;
+        nearLon = lon;
+        nearName = name;
+        binding.spinnerGalleryRadius.setEnabled(position != PLACE_ALL);
+        if (position != PLACE_ALL && binding.editGallerySearch.length() > 0) {
+            // Clearing the text triggers a (debounced) reload through the text watcher
+            binding.editGallerySearch.setText("");
+        } else {
+            loadPhotos();
+        }
+    }
+
+    private PhotoQuery buildQuery() {
+        if (selectedPlace != PLACE_ALL) {
+            int radius = RADIUS_METERS[binding.spinnerGalleryRadius.getSelectedItemPosition()];
+            return PhotoQuery.near(nearLat, nearLon, radius, nearName);
+        }
+        return PhotoQuery.search(binding.editGallerySearch.getText().toString());
+    }
+
+    /**
+     * Starts a new query: loads its day section index, then lets the pager fill in photos
+     * as rows come into view.
+     */
     private void loadPhotos() {
+        if (binding == null) return;
         binding.progressBarGallery.setVisibility(View.VISIBLE);
         binding.textNoPhotos.setVisibility(View.GONE);
 
+        final PhotoQuery query = buildQuery();
+        final int generation = ++queryGeneration;
+
         databaseExecutor.execute(() -> {
             AppDatabase db = AppDatabase.getDatabase(getContext());
             PhotoDao dao = db.photoDao();
-            
-            final List<Photo> loadedPhotos = dao.getAllPhotos();
 
-            new Handler(Looper.getMainLooper()).post(() -> {
-                if (binding == null) return;
+            final List<DaySection> sections = dao.getDaySections(query.daySections());
+
+            uiHandler.post(() -> {
+                if (binding == null || generation != queryGeneration) return;
 
                 binding.progressBarGallery.setVisibility(View.GONE);
+                pager.reset(query, sections);
+                adapter.notifyDataSetChanged();
 
-                if (loadedPhotos != null && !loadedPhotos.isEmpty()) {
-                    photoList.clear();
-                    photoList.addAll(loadedPhotos);
-                    adapter.notifyDataSetChanged();
-                    
+                if (pager.getPhotoCount() > 0) {
                     binding.recyclerViewGallery.setVisibility(View.VISIBLE);
+                    binding.fastScrollerGallery.setVisibility(View.VISIBLE);
                     binding.textNoPhotos.setVisibility(View.GONE);
                 } else {
                     binding.recyclerViewGallery.setVisibility(View.GONE);
+                    binding.fastScrollerGallery.setVisibility(View.GONE);
+                    binding.textNoPhotos.setText(query.mode == PhotoQuery.MODE_ALL
+                            ? "No photos captured yet."
+                            : "No photos " + query.label.toLowerCase() + ".");
                     binding.textNoPhotos.setVisibility(View.VISIBLE);
                 }
             });
         });
     }
 
+    private boolean isAdminModeEnabled() {
+        return requireContext().getSharedPreferences(PREFS_TOGGLES, Context.MODE_PRIVATE)
+                .getBoolean(KEY_ADMIN_ENABLED, false);
+    }
+
+    /**
+     * Opens the full-screen viewer on the clicked photo; it pages through the rest of the
+     * current query itself, in timeline order.
+     */
+    private void openImageViewer(Photo photo) {
+        ImageViewerActivity.open(requireContext(), pager.getQuery(), photo.getId());
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        uiHandler.removeCallbacks(searchRunnable);
+        if (frameStats != null) {
+            frameStats.stop();
+            frameStats = null;
+        }
         binding = null; 
         if (databaseExecutor != null) {
             databaseExecutor.shutdown();
@@ -0,0 +1,182 @@
+package com.lunartag.app.ui.gallery;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.data.PhotoQuery;
+import com.lunartag.app.model.DaySection;
+import com.lunartag.app.model.Photo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Data source for the day-sectioned gallery timeline.
+ * The layout (one header row per day followed by that day's photos) is computed up front from
+ * the section index, a single grouped query. Photos themselves are loaded lazily in chunks of
+ * up to CHUNK_SIZE rows inside a day, addressed by (day, offset within day), so jumping anywhere only
+ * loads the rows that are actually shown. A bounded LRU keeps memory flat on huge libraries.
+ * All methods must be called on the main thread.
+ */
+public class GalleryPager {
+
+    public static final int CHUNK_SIZE = 60;
+    private static final int MAX_CACHED_CHUNKS = 40;
+
+    /**
+     * Notified on the main thread when rows that were placeholders now have data.
+     */
+    public interface Listener {
+        void onRangeLoaded(int adapterPosition, int count);
+    }
+
+    private final PhotoDao photoDao;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Listener listener;
+
+    private PhotoQuery query = PhotoQuery.all();
+    private int generation = 0;
+
+    private List<DaySection> sections = Collections.emptyList();
+    private int[] sectionStart = new int[0]; // Adapter position of each section header
+    private int itemCount = 0;
+
+    // Chunk key -> photos; key = section index << 32 | chunk index
+    private final LinkedHashMap<Long, List<Photo>> chunks = new LinkedHashMap<Long, List<Photo>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Photo>> eldest) {
+            return size() > MAX_CACHED_CHUNKS;
+        }
+    };
+    private final Set<Long> loadingChunks = new HashSet<>();
+
+    public GalleryPager(PhotoDao photoDao, ExecutorService executor) {
+        this.photoDao = photoDao;
+        this.executor = executor;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public PhotoQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Installs a new query and its section index (loaded off the main thread by the caller),
+     * dropping everything cached for the previous one.
+     */
+    public void reset(PhotoQuery query, List<DaySection> sections) {
+        this.query = query;
+        this.sections = sections;
+        this.generation++;
+        chunks.clear();
+        loadingChunks.clear();
+
+        sectionStart = new int[sections.size()];
+        int position = 0;
+        for (int i = 0; i < sections.size(); i++) {
+            sectionStart[i] = position;
+            position += 1 + sections.get(i).count;
+        }
+        itemCount = position;
+    }
+
+    // --- Layout ---
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getPhotoCount() {
+        return itemCount - sections.size();
+    }
+
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    public DaySection getSection(int sectionIndex) {
+        return sections.get(sectionIndex);
+    }
+
+    public int getSectionStart(int sectionIndex) {
+        return sectionStart[sectionIndex];
+    }
+
+    /**
+     * Section that contains the given adapter position (header or photo).
+     */
+    public int sectionForPosition(int position) {
+        int index = Arrays.binarySearch(sectionStart, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public boolean isHeader(int position) {
+        return Arrays.binarySearch(sectionStart, position) >= 0;
+    }
+
+    // --- Data ---
+
+    /**
+     * Returns the photo at an adapter position, or null if its chunk is not loaded yet.
+     * A missing chunk is requested; the listener fires once it arrives.
+     */
+    public Photo getPhoto(int position) {
+        return photoAt(position, true);
+    }
+
+    /**
+     * Like getPhoto(), but never starts a load (for stable ids and other bookkeeping).
+     */
+    public Photo peekPhoto(int position) {
+        return photoAt(position, false);
+    }
+
+    private Photo photoAt(int position, boolean load) {
+        int section = sectionForPosition(position);
+        if (section < 0) return null;
+        int offset = position - sectionStart[section] - 1;
+        if (offset < 0) return null; // Header
+
+        int chunk = offset / CHUNK_SIZE;
+        long key = ((long) section << 32) | chunk;
+        List<Photo> photos = chunks.get(key);
+        if (photos == null) {
+            if (load) requestChunk(section, chunk, key);
+            return null;
+        }
+        int index = offset - chunk * CHUNK_SIZE;
+        return index < photos.size() ? photos.get(index) : null;
+    }
+
+    private void requestChunk(int section, int chunk, long key) {
+        if (executor.isShutdown() || !loadingChunks.add(key)) return;
+
+        final int requestGeneration = generation;
+        final PhotoQuery requestQuery = query;
+        final String day = sections.get(section).day;
+        final int offset = chunk * CHUNK_SIZE;
+
+        executor.execute(() -> {
+            List<Photo> photos = photoDao.getPhotoPage(requestQuery.dayPage(day, offset, CHUNK_SIZE));
+            mainHandler.post(() -> {
+                if (requestGeneration != generation) return; // Query changed meanwhile
+                loadingChunks.remove(key);
+                chunks.put(key, photos);
+                if (listener != null && !photos.isEmpty()) {
+                    listener.onRangeLoaded(sectionStart[section] + 1 + offset, photos.size());
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.lunartag.app.ui.gallery;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Multi-selection state of a photo grid or strip, keyed by photo id so it does not depend on
+ * which rows happen to be loaded. Every change reaches the adapter as a PAYLOAD_SELECTION
+ * partial bind, which only updates checkboxes: thumbnails are never rebound or reloaded.
+ */
+public final class PhotoSelection {
+
+    /** Payload of rebinds that only change selection state. */
+    public static final Object PAYLOAD_SELECTION = new Object();
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final Set<Long> selectedIds = new HashSet<>();
+    private boolean active = false;
+    private GalleryAdapter.OnSelectionChangeListener listener;
+
+    PhotoSelection(RecyclerView.Adapter<?> adapter) {
+        this.adapter = adapter;
+    }
+
+    void setListener(GalleryAdapter.OnSelectionChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * True while in selection mode (checkboxes shown).
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isSelected(long photoId) {
+        return selectedIds.contains(photoId);
+    }
+
+    /**
+     * Selects or deselects one photo, entering selection mode on the first one and leaving it
+     * when nothing is left selected.
+     * @param position Adapter position of the photo, the only row rebound when the mode stays.
+     */
+    public void toggle(long photoId, int position) {
+        if (!selectedIds.remove(photoId)) {
+            selectedIds.add(photoId);
+        }
+        boolean wasActive = active;
+        active = !selectedIds.isEmpty();
+
+        if (active != wasActive || position == RecyclerView.NO_POSITION) {
+            notifyAllRows(); // Checkboxes appear or disappear everywhere
+        } else {
+            adapter.notifyItemChanged(position, PAYLOAD_SELECTION);
+        }
+        dispatch();
+    }
+
+    public void selectAll(Collection<Long> ids) {
+        active = true;
+        selectedIds.clear();
+        selectedIds.addAll(ids);
+        notifyAllRows();
+        dispatch();
+    }
+
+    public void clear() {
+        boolean changed = active || !selectedIds.isEmpty();
+        active = false;
+        selectedIds.clear();
+        if (changed) notifyAllRows();
+        dispatch();
+    }
+
+    public List<Long> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
+    /**
+     * True if the rebind only carries selection changes, so the holder can skip everything else.
+     */
+    static boolean isSelectionOnly(List<Object> payloads) {
+        if (payloads.isEmpty()) return false;
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) return false;
+        }
+        return true;
+    }
+
+    private void notifyAllRows() {
+        adapter.notifyItemRangeChanged(0, adapter.getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    private void dispatch() {
+        if (listener != null) listener.onSelectionChanged(selectedIds.size());
+    }
+}
@@ -0,0 +1,60 @@
+package com.lunartag.app.ui.gallery;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.PhotoThumbnails;
+import com.lunartag.app.utils.ThumbnailPack;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Glide preloading for photo grids and strips: loads the tiles just past the edge of the list,
+ * in the direction it is scrolling, so they are in the memory cache before they are bound.
+ */
+public final class TilePreloader {
+
+    /**
+     * The photo at an adapter position, or null for headers and rows not loaded yet.
+     */
+    public interface PhotoLookup {
+        @Nullable
+        Photo photoAt(int position);
+    }
+
+    private TilePreloader() {}
+
+    /**
+     * Creates a preloader to add as a scroll listener of the list.
+     * @param maxPreload How many positions ahead to load, e.g. a few rows of a grid.
+     */
+    public static RecyclerViewPreloader<Photo> create(Fragment fragment, PhotoLookup lookup, int maxPreload) {
+        ListPreloader.PreloadModelProvider<Photo> models = new ListPreloader.PreloadModelProvider<Photo>() {
+            @NonNull
+            @Override
+            public List<Photo> getPreloadItems(int position) {
+                Photo photo = lookup.photoAt(position);
+                return photo != null ? Collections.singletonList(photo) : Collections.emptyList();
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<Drawable> getPreloadRequestBuilder(@NonNull Photo photo) {
+                return PhotoThumbnails.tileRequest(Glide.with(fragment), photo);
+            }
+        };
+        // Tile requests have a fixed size, so no view needs measuring
+        return new RecyclerViewPreloader<>(fragment, models,
+                new FixedPreloadSizeProvider<>(ThumbnailPack.TILE_SIZE, ThumbnailPack.TILE_SIZE), maxPreload);
+    }
+}
@@ -0,0 +1,270 @@
+package com.lunartag.app.ui.gallery;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.lunartag.app.R;
+import com.lunartag.app.model.DaySection;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.PhotoThumbnails;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Grid adapter for the day-sectioned gallery timeline.
+ * Rows come from a GalleryPager: a full-width header per capture day, then that day's photos.
+ * Photos whose chunk is still loading are bound as empty tiles and rebound once it arrives.
+ * UPDATED: Stable ids, and selection through a PhotoSelection whose changes are payload
+ * rebinds of the checkboxes only, so selecting hundreds of photos reloads no thumbnail.
+ * FIXED: Ids identify the slot (day section, offset in the day) rather than the photo, so a
+ * placeholder keeps its id once its photo has loaded.
+ */
+public class TimelineAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private static final int VIEW_TYPE_HEADER = 0;
+    private static final int VIEW_TYPE_PHOTO = 1;
+
+    private final Context context;
+    private final GalleryPager pager;
+    private final SimpleDateFormat timeFormat;
+    private final SimpleDateFormat dayParser;
+    private final SimpleDateFormat headerFormat;
+    private final SimpleDateFormat shortFormat;
+
+    // --- Selection ---
+    private final PhotoSelection selection = new PhotoSelection(this);
+    private OnPhotoClickListener photoClickListener;
+
+    public interface OnPhotoClickListener {
+        void onPhotoClicked(Photo photo);
+    }
+
+    public TimelineAdapter(Context context, GalleryPager pager) {
+        this.context = context;
+        this.pager = pager;
+        this.timeFormat = new SimpleDateFormat("hh:mm a", Locale.US);
+        this.dayParser = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        this.headerFormat = new SimpleDateFormat("EEE, d MMM yyyy", Locale.US);
+        this.shortFormat = new SimpleDateFormat("d MMM yyyy", Locale.US);
+        setHasStableIds(true);
+
+        // Rebind tiles that were placeholders once their chunk is in memory
+        pager.setListener(this::notifyItemRangeChanged);
+    }
+
+    public void setSelectionListener(GalleryAdapter.OnSelectionChangeListener listener) {
+        selection.setListener(listener);
+    }
+
+    public void setOnPhotoClickListener(OnPhotoClickListener listener) {
+        this.photoClickListener = listener;
+    }
+
+    /**
+     * Span lookup for a grid of the given width: headers take the full row.
+     */
+    public GridLayoutManager.SpanSizeLookup spanSizeLookup(int spanCount) {
+        GridLayoutManager.SpanSizeLookup lookup = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return pager.isHeader(position) ? spanCount : 1;
+            }
+        };
+        // Section starts are fixed per query, so span positions can be cached
+        lookup.setSpanIndexCacheEnabled(true);
+        lookup.setSpanGroupIndexCacheEnabled(true);
+        return lookup;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return pager.isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_PHOTO;
+    }
+
+    /**
+     * Slot ids, fixed for as long as the query is: -1 - section for headers, and
+     * (section << 32 | offset in the day) for tiles. A tile keeps its id while its chunk loads
+     * (a photo id would only be known afterwards, and stable ids must not change).
+     */
+    @Override
+    public long getItemId(int position) {
+        int section = pager.sectionForPosition(position);
+        if (pager.isHeader(position)) {
+            return -1L - section;
+        }
+        int offsetInDay = position - pager.getSectionStart(section) - 1;
+        return ((long) section << 32) | offsetInDay;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == VIEW_TYPE_HEADER) {
+            return new HeaderViewHolder(inflater.inflate(R.layout.item_gallery_header, parent, false));
+        }
+        return new PhotoViewHolder(inflater.inflate(R.layout.item_photo_thumbnail, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof HeaderViewHolder) {
+            int section = pager.sectionForPosition(position);
+            DaySection daySection = pager.getSection(section);
+            ((HeaderViewHolder) holder).titleTextView.setText(formatDay(daySection.day, headerFormat)
+                    + " · " + daySection.count + (daySection.count == 1 ? " photo" : " photos"));
+            return;
+        }
+
+        PhotoViewHolder photoHolder = (PhotoViewHolder) holder;
+        Photo currentPhoto = pager.getPhoto(position);
+        if (currentPhoto == null) {
+            bindPlaceholder(photoHolder);
+            return;
+        }
+
+        // 1. Set Text Data
+        photoHolder.timestampTextView.setText(timeFormat.format(currentPhoto.getAssignedTimestamp()));
+        photoHolder.statusTextView.setText(currentPhoto.isFileMissing() ? "MISSING" : currentPhoto.getStatus().name());
+
+        // 2. Load Image Efficiently (capture-time thumbnail, original as fallback)
+        PhotoThumbnails.loadInto(context, currentPhoto, photoHolder.thumbnailImageView);
+
+        // 3. Handle Selection Mode UI
+        bindSelection(photoHolder, currentPhoto);
+
+        // 4. Handle Click Logic
+        long photoId = currentPhoto.getId();
+        photoHolder.itemView.setOnClickListener(v -> {
+            if (selection.isActive()) {
+                selection.toggle(photoId, photoHolder.getAdapterPosition());
+            } else if (photoClickListener != null) {
+                photoClickListener.onPhotoClicked(currentPhoto);
+            }
+        });
+
+        // 5. Handle Long Click (Start Selection Mode)
+        photoHolder.itemView.setOnLongClickListener(v -> {
+            if (!selection.isActive()) {
+                selection.toggle(photoId, photoHolder.getAdapterPosition());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!PhotoSelection.isSelectionOnly(payloads)) {
+            onBindViewHolder(holder, position);
+        } else if (holder instanceof PhotoViewHolder) {
+            // Placeholders keep their hidden checkbox until their chunk arrives
+            Photo photo = pager.peekPhoto(position);
+            if (photo != null) bindSelection((PhotoViewHolder) holder, photo);
+        }
+    }
+
+    private void bindSelection(PhotoViewHolder holder, Photo photo) {
+        if (selection.isActive()) {
+            holder.checkBox.setVisibility(View.VISIBLE);
+            holder.checkBox.setChecked(selection.isSelected(photo.getId()));
+        } else {
+            holder.checkBox.setVisibility(View.GONE);
+        }
+    }
+
+    private void bindPlaceholder(PhotoViewHolder holder) {
+        Glide.with(context).clear(holder.thumbnailImageView);
+        holder.thumbnailImageView.setImageDrawable(null);
+        holder.timestampTextView.setText("");
+        holder.statusTextView.setText("");
+        holder.checkBox.setVisibility(View.GONE);
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setOnLongClickListener(null);
+    }
+
+    // --- Section Labels ---
+
+    /**
+     * Short date label for a section, used by the fast scroller bubble.
+     */
+    public String getSectionLabel(int section) {
+        if (section < 0 || section >= pager.getSectionCount()) return "";
+        return formatDay(pager.getSection(section).day, shortFormat);
+    }
+
+    private String formatDay(String day, SimpleDateFormat format) {
+        if (day == null) return "Unknown date";
+        try {
+            Date date = dayParser.parse(day);
+            return date != null ? format.format(date) : day;
+        } catch (ParseException e) {
+            return day;
+        }
+    }
+
+    // --- Selection Helpers for Fragment ---
+
+    /**
+     * Selects the given photos; the ids come from the fragment because most rows of a large
+     * timeline are never loaded into the adapter.
+     */
+    public void selectAll(List<Long> ids) {
+        selection.selectAll(ids);
+    }
+
+    public void clearSelection() {
+        selection.clear();
+    }
+
+    public List<Long> getSelectedIds() {
+        return selection.getSelectedIds();
+    }
+
+    public boolean isSelectionMode() {
+        return selection.isActive();
+    }
+
+    @Override
+    public int getItemCount() {
+        return pager.getItemCount();
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView titleTextView;
+
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            titleTextView = itemView.findViewById(R.id.text_gallery_header);
+        }
+    }
+
+    static class PhotoViewHolder extends RecyclerView.ViewHolder {
+        final ImageView thumbnailImageView;
+        final TextView timestampTextView;
+        final TextView statusTextView;
+        final CheckBox checkBox;
+
+        PhotoViewHolder(@NonNull View itemView) {
+            super(itemView);
+            thumbnailImageView = itemView.findViewById(R.id.image_thumbnail);
+            timestampTextView = itemView.findViewById(R.id.text_thumbnail_timestamp);
+            statusTextView = itemView.findViewById(R.id.text_thumbnail_status);
+            checkBox = itemView.findViewById(R.id.checkbox_select);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.lunartag.app.ui.logs;
+
+import android.graphics.Color;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.lunartag.app.R;
+import com.lunartag.app.utils.LogBuffer;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Virtualized adapter over the LogBuffer ring.
+ * It never copies log text: it keeps a precomputed index of the sequence numbers that match
+ * the current filter and binds rows straight from the ring. New entries are indexed
+ * incrementally, and entries that fall out of the ring are pruned from the front.
+ */
+public class LogAdapter extends RecyclerView.Adapter<LogAdapter.LogViewHolder> {
+
+    private static final int COLOR_DEBUG = Color.parseColor("#9E9E9E");
+    private static final int COLOR_INFO = Color.parseColor("#00FF00");
+    private static final int COLOR_WARN = Color.parseColor("#FFD600");
+    private static final int COLOR_ERROR = Color.parseColor("#FF5252");
+
+    // Index of matching LogBuffer sequence numbers, oldest first
+    private long[] index = new long[256];
+    private int size = 0;
+
+    // Next LogBuffer sequence that has not been checked against the filter yet
+    private long nextScanSequence = 0;
+
+    // Current filter
+    private int minLevel = LogBuffer.LEVEL_DEBUG;
+    private String query = "";
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.US);
+
+    public LogAdapter() {
+        rebuildIndex();
+    }
+
+    /**
+     * Applies a new filter and rebuilds the index from the whole ring.
+     * @param minLevel Lowest severity to show (LogBuffer.LEVEL_*).
+     * @param query Case-insensitive text to match, empty for none.
+     */
+    public void setFilter(int minLevel, String query) {
+        this.minLevel = minLevel;
+        this.query = query == null ? "" : query.trim().toLowerCase(Locale.US);
+        rebuildIndex();
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Brings the index up to date with the ring.
+     * @return The number of rows appended at the end.
+     */
+    public int syncWithBuffer() {
+        int expired = pruneExpired();
+        if (expired > 0) {
+            notifyItemRangeRemoved(0, expired);
+        }
+        int start = size;
+        scanNewEntries();
+        int added = size - start;
+        if (added > 0) {
+            notifyItemRangeInserted(start, added);
+        }
+        return added;
+    }
+
+    private void rebuildIndex() {
+        size = 0;
+        nextScanSequence = LogBuffer.getOldestSequence();
+        scanNewEntries();
+    }
+
+    private void scanNewEntries() {
+        long end = LogBuffer.getNextSequence();
+        long seq = Math.max(nextScanSequence, LogBuffer.getOldestSequence());
+        for (; seq < end; seq++) {
+            LogBuffer.Entry entry = LogBuffer.get(seq);
+            if (entry == null) {
+                // Claimed but not yet published; pick it up on the next sync
+                break;
+            }
+            if (matches(entry)) {
+                append(seq);
+            }
+        }
+        nextScanSequence = seq;
+    }
+
+    private boolean matches(LogBuffer.Entry entry) {
+        if (entry.level < minLevel) return false;
+        return query.isEmpty() || entry.message.toLowerCase(Locale.US).contains(query);
+    }
+
+    private void append(long sequence) {
+        if (size == index.length) {
+            long[] grown = new long[index.length * 2];
+            System.arraycopy(index, 0, grown, 0, size);
+            index = grown;
+        }
+        index[size++] = sequence;
+    }
+
+    /**
+     * Drops index entries whose lines have been overwritten in the ring.
+     * @return The number of rows removed from the front.
+     */
+    private int pruneExpired() {
+        long oldest = LogBuffer.getOldestSequence();
+        int expired = 0;
+        while (expired < size && index[expired] < oldest) {
+            expired++;
+        }
+        if (expired > 0) {
+            System.arraycopy(index, expired, index, 0, size - expired);
+            size -= expired;
+        }
+        return expired;
+    }
+
+    @NonNull
+    @Override
+    public LogViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_log_line, parent, false);
+        return new LogViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LogViewHolder holder, int position) {
+        LogBuffer.Entry entry = LogBuffer.get(index[position]);
+        if (entry == null) {
+            // Overwritten between syncs; it will be pruned on the next one
+            holder.textView.setText("...");
+            holder.textView.setTextColor(COLOR_DEBUG);
+            return;
+        }
+        holder.textView.setText(timeFormat.format(new Date(entry.timestamp)) + " " + entry.message);
+        holder.textView.setTextColor(colorFor(entry.level));
+    }
+
+    private static int colorFor(int level) {
+        switch (level) {
+            case LogBuffer.LEVEL_DEBUG: return COLOR_DEBUG;
+            case LogBuffer.LEVEL_WARN: return COLOR_WARN;
+            case LogBuffer.LEVEL_ERROR: return COLOR_ERROR;
+            default: return COLOR_INFO;
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return size;
+    }
+
+    static class LogViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        LogViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textView = itemView.findViewById(R.id.text_log_line);
+        }
+    }
+}
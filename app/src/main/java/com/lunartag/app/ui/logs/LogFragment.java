@@ -1,25 +1,86 @@
 package com.lunartag.app.ui.logs;
 
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ScrollView;
-import android.widget.TextView;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.lunartag.app.MainActivity;
+import com.google.android.material.button.MaterialButton;
 import com.lunartag.app.R;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.LogExporter;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live console for the LogBuffer.
+ * UPDATED: Replaced the single growing TextView with a virtualized RecyclerView. Only visible
+ * lines are bound, bursts of new lines are coalesced into one UI update, and lines can be
+ * filtered by severity and text. Auto-follow pauses while the user is reading older lines.
+ * NEW: Export button streams the live log and audit history into a shareable .gz file.
+ */
 public class LogFragment extends Fragment {
 
-    private TextView textLogs;
-    private ScrollView scrollView;
+    private static final long FILTER_DEBOUNCE_MS = 150;
+
+    // Spinner position -> minimum severity shown
+    private static final String[] LEVEL_LABELS = {"All", "Info", "Warnings", "Errors"};
+    private static final int[] LEVEL_VALUES = {
+            LogBuffer.LEVEL_DEBUG, LogBuffer.LEVEL_INFO, LogBuffer.LEVEL_WARN, LogBuffer.LEVEL_ERROR
+    };
+
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private MaterialButton buttonFollow;
+    private MaterialButton buttonExport;
+    private EditText editFilter;
+    private LogAdapter adapter;
+
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+
+    // True while the list sticks to the newest line
+    private boolean following = true;
+    private int minLevel = LogBuffer.LEVEL_DEBUG;
+
+    // Set when a sync is already queued on the main thread, so a burst of lines costs one update
+    private final AtomicBoolean syncPosted = new AtomicBoolean(false);
+
+    private final Runnable syncRunnable = () -> {
+        syncPosted.set(false);
+        syncWithBuffer();
+    };
+
+    private final Runnable applyFilterRunnable = this::applyFilter;
+
+    // Called on the writer's thread; only schedules work
+    private final LogBuffer.Listener logListener = entry -> {
+        if (syncPosted.compareAndSet(false, true)) {
+            uiHandler.post(syncRunnable);
+        }
+    };
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -30,35 +91,193 @@ public class LogFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        textLogs = view.findViewById(R.id.text_full_logs);
-        scrollView = view.findViewById(R.id.scroll_view_logs);
+        recyclerView = view.findViewById(R.id.recycler_view_logs);
+        buttonFollow = view.findViewById(R.id.button_follow_logs);
+        editFilter = view.findViewById(R.id.edit_log_filter);
+        buttonExport = view.findViewById(R.id.button_export_logs);
+        Spinner spinnerLevel = view.findViewById(R.id.spinner_log_level);
+
+        layoutManager = new LinearLayoutManager(requireContext());
+        layoutManager.setStackFromEnd(true);
+        recyclerView.setLayoutManager(layoutManager);
+        // Row height never depends on the adapter contents
+        recyclerView.setHasFixedSize(true);
+        // Appends are frequent; skip the default change animations
+        recyclerView.setItemAnimator(null);
+
+        adapter = new LogAdapter();
+        recyclerView.setAdapter(adapter);
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    // The user took over; stop jumping to new lines
+                    setFollowing(false);
+                } else if (newState == RecyclerView.SCROLL_STATE_IDLE && isAtBottom()) {
+                    setFollowing(true);
+                }
+            }
+        });
 
-        // Retrieve the full history from MainActivity (Central Brain)
-        if (getActivity() instanceof MainActivity) {
-            String history = ((MainActivity) getActivity()).getGlobalLogs();
-            textLogs.setText(history);
+        buttonFollow.setOnClickListener(v -> {
+            setFollowing(true);
             scrollToBottom();
-        }
+        });
+
+        ArrayAdapter<String> levelAdapter = new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_item, LEVEL_LABELS);
+        levelAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerLevel.setAdapter(levelAdapter);
+        spinnerLevel.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View v, int position, long id) {
+                if (minLevel != LEVEL_VALUES[position]) {
+                    minLevel = LEVEL_VALUES[position];
+                    applyFilter();
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        editFilter.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Debounce so typing does not rescan the ring on every keystroke
+                uiHandler.removeCallbacks(applyFilterRunnable);
+                uiHandler.postDelayed(applyFilterRunnable, FILTER_DEBOUNCE_MS);
+            }
+        });
+
+        buttonExport.setOnClickListener(v -> exportLogs());
+
+        scrollToBottom();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        LogBuffer.addListener(logListener);
+        // Catch up on anything logged while the screen was hidden
+        syncWithBuffer();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        LogBuffer.removeListener(logListener);
+        uiHandler.removeCallbacks(syncRunnable);
+        syncPosted.set(false);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        uiHandler.removeCallbacks(applyFilterRunnable);
+        recyclerView = null;
+        adapter = null;
+        buttonExport = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        exportExecutor.shutdown();
     }
 
     /**
-     * Called by MainActivity when a new log arrives while this screen is visible.
+     * Builds the export off the main thread, then hands it to the system share sheet.
      */
-    public void appendLog(String message) {
-        if (textLogs != null) {
-            textLogs.append(message + "\n");
+    private void exportLogs() {
+        final Context appContext = requireContext().getApplicationContext();
+        buttonExport.setEnabled(false);
+        LogBuffer.i("Logs: Export started...");
+
+        exportExecutor.execute(() -> {
+            File file = null;
+            String error = null;
+            try {
+                file = LogExporter.export(appContext);
+            } catch (Exception e) {
+                error = e.getMessage();
+            }
+            final File result = file;
+            final String failure = error;
+            uiHandler.post(() -> {
+                if (buttonExport != null) buttonExport.setEnabled(true);
+                if (result == null) {
+                    LogBuffer.e("Logs: Export failed: " + failure);
+                    if (getContext() != null) {
+                        Toast.makeText(getContext(), "Export failed: " + failure, Toast.LENGTH_LONG).show();
+                    }
+                    return;
+                }
+                LogBuffer.i("Logs: Exported " + result.getName() + " (" + (result.length() / 1024) + " KB)");
+                shareExport(result);
+            });
+        });
+    }
+
+    private void shareExport(File file) {
+        if (getContext() == null) return;
+        try {
+            Uri uri = FileProvider.getUriForFile(requireContext(),
+                    requireContext().getPackageName() + ".fileprovider", file);
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType("application/gzip");
+            shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, "LunarTag logs");
+            shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            startActivity(Intent.createChooser(shareIntent, "Share logs"));
+        } catch (Exception e) {
+            Toast.makeText(getContext(), "Cannot share export: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private void syncWithBuffer() {
+        if (adapter == null) return;
+        int added = adapter.syncWithBuffer();
+        if (added > 0 && following) {
             scrollToBottom();
         }
     }
 
+    private void applyFilter() {
+        if (adapter == null) return;
+        String query = editFilter.getText() != null ? editFilter.getText().toString() : "";
+        adapter.setFilter(minLevel, query);
+        setFollowing(true);
+        scrollToBottom();
+    }
+
+    private void setFollowing(boolean follow) {
+        following = follow;
+        if (buttonFollow != null) {
+            buttonFollow.setVisibility(follow ? View.GONE : View.VISIBLE);
+        }
+    }
+
+    private boolean isAtBottom() {
+        int count = adapter != null ? adapter.getItemCount() : 0;
+        return count == 0 || layoutManager.findLastVisibleItemPosition() >= count - 1;
+    }
+
     private void scrollToBottom() {
-        if (scrollView != null) {
-            new Handler(Looper.getMainLooper()).post(new Runnable() {
-                @Override
-                public void run() {
-                    scrollView.fullScroll(View.FOCUS_DOWN);
-                }
-            });
+        if (recyclerView == null || adapter == null) return;
+        int count = adapter.getItemCount();
+        if (count > 0) {
+            recyclerView.scrollToPosition(count - 1);
         }
     }
-              }
+}
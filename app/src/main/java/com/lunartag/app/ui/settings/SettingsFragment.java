@@ -1,28 +1,41 @@
 package com.lunartag.app.ui.settings;
 
+import android.app.AlertDialog;
 import android.app.TimePickerDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.RadioButton;
 import android.widget.TimePicker;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.lunartag.app.R;
+import com.lunartag.app.data.DatabaseBackup;
 import com.lunartag.app.databinding.FragmentSettingsBinding;
 import com.lunartag.app.services.OverlayService;
 import com.lunartag.app.utils.AdManager;
+import com.lunartag.app.utils.EncodingProfile;
 
+import java.io.File;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SettingsFragment extends Fragment {
 
@@ -47,6 +60,14 @@ public class SettingsFragment extends Fragment {
     // *** NEW: Ad Manager ***
     private AdManager adManager;
 
+    // NEW: Database backup / restore
+    private final ExecutorService backupExecutor = Executors.newSingleThreadExecutor();
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final ActivityResultLauncher<String[]> restorePicker = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) stageRestore(uri);
+            });
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentSettingsBinding.inflate(inflater, container, false);
@@ -64,6 +85,8 @@ public class SettingsFragment extends Fragment {
 
         loadSettings();
         setupClickListeners();
+        setupEncoding();
+        setupBackup();
 
         // This method will now show a toast with the admin flag's value
         setupAdminFeatures();
@@ -229,6 +252,133 @@ public class SettingsFragment extends Fragment {
         timePickerDialog.show();
     }
 
+    /**
+     * NEW: Output profile picker. Each option shows what the profile is and what it measured on
+     * this device; a change is saved at once and used from the next camera start.
+     */
+    private void setupEncoding() {
+        RadioButton[] buttons = {
+                binding.radioEncodingArchive, binding.radioEncodingBalanced, binding.radioEncodingShare};
+        EncodingProfile current = EncodingProfile.current(requireContext());
+        EncodingProfile[] profiles = EncodingProfile.values();
+        for (int i = 0; i < profiles.length; i++) {
+            buttons[i].setText(profiles[i].getLabel() + " - " + profiles[i].getDescription() + "\n"
+                    + profiles[i].describeStats(requireContext()));
+            buttons[i].setChecked(profiles[i] == current);
+        }
+
+        binding.radioGroupEncoding.setOnCheckedChangeListener((group, checkedId) -> {
+            for (int i = 0; i < buttons.length; i++) {
+                if (buttons[i].getId() == checkedId) {
+                    EncodingProfile.setCurrent(requireContext(), profiles[i]);
+                }
+            }
+        });
+    }
+
+    private void setupBackup() {
+        String lastReport = DatabaseBackup.getLastReport(requireContext());
+        if (lastReport != null) {
+            binding.textBackupStatus.setText("Last backup " + lastReport);
+        }
+
+        binding.buttonBackupNow.setOnClickListener(v -> {
+            binding.buttonBackupNow.setEnabled(false);
+            binding.textBackupStatus.setText("Backing up...");
+            Context appContext = requireContext().getApplicationContext();
+            backupExecutor.execute(() -> {
+                String message;
+                try {
+                    message = "Last backup " + DatabaseBackup.createSnapshot(appContext).summary();
+                } catch (Exception e) {
+                    message = "Backup failed: " + e.getMessage();
+                }
+                final String result = message;
+                uiHandler.post(() -> {
+                    if (binding == null) return;
+                    binding.buttonBackupNow.setEnabled(true);
+                    binding.textBackupStatus.setText(result);
+                });
+            });
+        });
+
+        binding.buttonRestoreBackup.setOnClickListener(v -> {
+            new AlertDialog.Builder(getContext())
+                    .setTitle("Restore From Backup")
+                    .setItems(new String[]{"Latest backup on this device", "Choose a backup file..."}, (dialog, which) -> {
+                        if (which == 0) {
+                            List<File> backups = DatabaseBackup.listBackups(requireContext());
+                            if (backups.isEmpty()) {
+                                Toast.makeText(getContext(), "No backups on this device.", Toast.LENGTH_SHORT).show();
+                            } else {
+                                stageRestore(Uri.fromFile(backups.get(0)));
+                            }
+                        } else {
+                            restorePicker.launch(new String[]{"application/gzip", "application/x-gzip", "application/octet-stream"});
+                        }
+                    })
+                    .show();
+        });
+    }
+
+    /**
+     * Validates the chosen backup off the main thread, then asks before restarting into it.
+     * Only "Restore & Restart" stages the backup; if the dialog is lost (rotation, process death)
+     * the candidate is dropped on the next start instead of being applied.
+     */
+    private void stageRestore(Uri uri) {
+        Context appContext = requireContext().getApplicationContext();
+        binding.textBackupStatus.setText("Checking backup...");
+        backupExecutor.execute(() -> {
+            int photos;
+            String error = null;
+            try {
+                photos = DatabaseBackup.prepareRestore(appContext, uri);
+            } catch (Exception e) {
+                photos = -1;
+                error = e.getMessage();
+            }
+            final int photoCount = photos;
+            final String failure = error;
+            uiHandler.post(() -> {
+                if (binding == null) {
+                    // No one to confirm it; an unconfirmed candidate is never applied
+                    if (photoCount >= 0) DatabaseBackup.cancelPendingRestore(appContext);
+                    return;
+                }
+                if (photoCount < 0) {
+                    binding.textBackupStatus.setText("Restore refused: " + failure);
+                    return;
+                }
+                binding.textBackupStatus.setText("Backup is valid (" + photoCount + " photos).");
+                new AlertDialog.Builder(getContext())
+                        .setTitle("Replace All Data?")
+                        .setMessage("The backup contains " + photoCount + " photo record(s). Current records and "
+                                + "workplaces will be replaced and the app will restart.")
+                        .setPositiveButton("Restore & Restart", (d, w) -> {
+                            if (DatabaseBackup.confirmRestore(appContext)) {
+                                restartApp();
+                            } else if (binding != null) {
+                                binding.textBackupStatus.setText("Restore failed: backup could not be staged.");
+                            }
+                        })
+                        .setNegativeButton("Cancel", (d, w) -> DatabaseBackup.cancelPendingRestore(appContext))
+                        .setCancelable(false)
+                        .show();
+            });
+        });
+    }
+
+    private void restartApp() {
+        Intent intent = requireContext().getPackageManager().getLaunchIntentForPackage(requireContext().getPackageName());
+        if (intent != null) {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(intent);
+        }
+        // The staged database is moved into place by LunarTagApplication in the new process
+        Runtime.getRuntime().exit(0);
+    }
+
     private void setupAdminFeatures() {
         SharedPreferences featureTogglePrefs = requireActivity().getSharedPreferences("LunarTagFeatureToggles", Context.MODE_PRIVATE);
         boolean isAdminModeEnabled = featureTogglePrefs.getBoolean("customTimestampEnabled", false);
@@ -284,4 +434,10 @@ public class SettingsFragment extends Fragment {
         super.onDestroyView();
         binding = null;
     }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        backupExecutor.shutdown();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.lunartag.app.ui.viewer;
 
 import android.app.AlertDialog; 
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
@@ -17,8 +18,11 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.lunartag.app.R;
 import com.lunartag.app.data.AppDatabase;
 import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.data.PhotoQuery;
 import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.PhotoThumbnails;
 import com.lunartag.app.utils.Scheduler;
+import com.lunartag.app.utils.ShareVariants;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -26,16 +30,35 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+/**
+ * Full-screen photo viewer.
+ * UPDATED: Started with a photo id and the PhotoQuery of the screen it was opened from instead
+ * of every path of that screen in the Intent; a ViewerPager pages the neighbours in from Room
+ * as the user swipes, so opening a photo costs the same in a library of any size.
+ */
 public class ImageViewerActivity extends AppCompatActivity {
 
+    public static final String EXTRA_PHOTO_ID = "com.lunartag.app.EXTRA_PHOTO_ID";
+    public static final String EXTRA_QUERY = "com.lunartag.app.EXTRA_QUERY";
+
     private ViewPager2 viewPager;
     private TextView textCounter;
     private ImageButton btnClose, btnShare, btnDelete;
 
     private ImageViewerAdapter adapter;
-    private List<String> imagePaths;
+    private ViewerPager pager;
     private ExecutorService databaseExecutor;
 
+    /**
+     * Opens the viewer on a photo; swiping moves through the other photos of the query.
+     */
+    public static void open(Context context, PhotoQuery query, long photoId) {
+        Intent intent = new Intent(context, ImageViewerActivity.class);
+        intent.putExtra(EXTRA_PHOTO_ID, photoId);
+        intent.putExtra(EXTRA_QUERY, query);
+        context.startActivity(intent);
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -52,25 +75,45 @@ public class ImageViewerActivity extends AppCompatActivity {
         btnDelete = findViewById(R.id.btn_delete);
 
         // Get Data from Intent
-        if (getIntent() != null) {
-            imagePaths = getIntent().getStringArrayListExtra("paths");
-            int startPosition = getIntent().getIntExtra("start_position", 0);
-
-            if (imagePaths == null) imagePaths = new ArrayList<>();
-
-            setupViewPager(startPosition);
-        }
+        long photoId = getIntent().getLongExtra(EXTRA_PHOTO_ID, -1);
+        PhotoQuery query = (PhotoQuery) getIntent().getSerializableExtra(EXTRA_QUERY);
+        if (query == null) query = PhotoQuery.all();
 
+        pager = new ViewerPager(AppDatabase.getDatabase(this).photoDao(), query, databaseExecutor);
+        setupViewPager(photoId);
         setupClickListeners();
     }
 
-    private void setupViewPager(int startPosition) {
-        adapter = new ImageViewerAdapter(this, imagePaths);
+    private void setupViewPager(long photoId) {
+        adapter = new ImageViewerAdapter(this, pager);
         viewPager.setAdapter(adapter);
-        
-        // Jump to the clicked photo
-        viewPager.setCurrentItem(startPosition, false);
-        updateCounter(startPosition);
+        // Keep the neighbouring pages bound, so their screen-sized decode is done before a swipe
+        viewPager.setOffscreenPageLimit(1);
+
+        pager.setListener(new ViewerPager.Listener() {
+            @Override
+            public void onRangeLoaded(int start, int count) {
+                adapter.notifyItemRangeChanged(start, count);
+            }
+
+            @Override
+            public void onChanged() {
+                adapter.notifyDataSetChanged();
+                updateCounter(viewPager.getCurrentItem());
+            }
+        });
+
+        // Jump to the clicked photo once it and its neighbours are loaded
+        pager.start(photoId, startPosition -> {
+            if (startPosition < 0) {
+                Toast.makeText(this, "Photo no longer exists", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            adapter.notifyDataSetChanged();
+            viewPager.setCurrentItem(startPosition, false);
+            updateCounter(startPosition);
+        });
 
         // Update counter when swiping
         viewPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
@@ -83,7 +126,7 @@ public class ImageViewerActivity extends AppCompatActivity {
 
     private void updateCounter(int position) {
         int current = position + 1;
-        int total = imagePaths.size();
+        int total = pager.getCount();
         textCounter.setText(current + " / " + total);
     }
 
@@ -99,12 +142,18 @@ public class ImageViewerActivity extends AppCompatActivity {
     }
 
     private void shareCurrentImage() {
-        int currentPos = viewPager.getCurrentItem();
-        if (currentPos < 0 || currentPos >= imagePaths.size()) return;
+        Photo photo = pager.getPhoto(viewPager.getCurrentItem());
+        if (photo == null) return;
 
-        String path = imagePaths.get(currentPos);
+        String path = photo.getFilePath();
         Uri uri = null;
 
+        // NEW: The downscaled share copy made at capture time, if the photo has one
+        File shareCopy = ShareVariants.existing(photo.getSharePath());
+        if (shareCopy != null) {
+            path = shareCopy.getAbsolutePath();
+        }
+
         // FIXED: Check if it's a Custom Folder (Content URI) or Internal File
         if (path.startsWith("content://")) {
             // It is a SAF URI, parse directly
@@ -137,7 +186,9 @@ public class ImageViewerActivity extends AppCompatActivity {
 
         if (uri != null) {
             Intent shareIntent = new Intent(Intent.ACTION_SEND);
-            shareIntent.setType("image/jpeg");
+            // JPEG or WebP depending on the profile the photo was saved with
+            String mimeType = getContentResolver().getType(uri);
+            shareIntent.setType(mimeType != null ? mimeType : "image/*");
             shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
             shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
             startActivity(Intent.createChooser(shareIntent, "Share Image via..."));
@@ -155,27 +206,23 @@ public class ImageViewerActivity extends AppCompatActivity {
 
     private void deleteCurrentImage() {
         int currentPos = viewPager.getCurrentItem();
-        if (currentPos < 0 || currentPos >= imagePaths.size()) return;
+        Photo current = pager.getPhoto(currentPos);
+        if (current == null) return;
 
-        String pathToDelete = imagePaths.get(currentPos);
+        String pathToDelete = current.getFilePath();
+        long idToDelete = current.getId();
 
         databaseExecutor.execute(() -> {
             // 1. Clean up Database and Scheduler
             AppDatabase db = AppDatabase.getDatabase(this);
             PhotoDao dao = db.photoDao();
             
-            List<Photo> allPhotos = dao.getAllPhotos(); 
-            Photo targetPhoto = null;
-            for (Photo p : allPhotos) {
-                if (p.getFilePath().equals(pathToDelete)) {
-                    targetPhoto = p;
-                    break;
-                }
-            }
+            Photo targetPhoto = dao.getPhotoById(idToDelete);
 
             if (targetPhoto != null) {
                 // Cancel the alarm
                 Scheduler.cancelPhotoSend(this, targetPhoto.getId());
+                PhotoThumbnails.delete(this, targetPhoto);
                 // Delete from DB using the list delete method we added earlier
                 List<Long> idList = new ArrayList<>();
                 idList.add(targetPhoto.getId());
@@ -199,10 +246,10 @@ public class ImageViewerActivity extends AppCompatActivity {
 
             // 3. Update UI
             new Handler(Looper.getMainLooper()).post(() -> {
-                imagePaths.remove(currentPos);
+                pager.remove(currentPos);
                 adapter.notifyItemRemoved(currentPos);
                 
-                if (imagePaths.isEmpty()) {
+                if (pager.getCount() == 0) {
                     // If no photos left, close viewer
                     Toast.makeText(this, "All photos deleted", Toast.LENGTH_SHORT).show();
                     finish();
@@ -220,6 +267,9 @@ public class ImageViewerActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (pager != null) {
+            pager.close();
+        }
         if (databaseExecutor != null) {
             databaseExecutor.shutdown();
         }
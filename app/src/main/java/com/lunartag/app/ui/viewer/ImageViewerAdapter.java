@@ -11,19 +11,37 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.davemorrissey.labs.subscaleview.ImageSource;
+import com.davemorrissey.labs.subscaleview.SubsamplingScaleImageView;
 import com.lunartag.app.R;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.EmbeddedThumbnailLoader;
+import com.lunartag.app.utils.PhotoThumbnails;
 
 import java.io.File;
-import java.util.List;
 
+/**
+ * Full-screen pages of the photo viewer.
+ * UPDATED: Pages are SubsamplingScaleImageViews. The first decode is subsampled to the screen
+ * size, and zooming in loads full-resolution tiles of just the visible region
+ * (BitmapRegionDecoder), so small watermark text stays readable without ever decoding a whole
+ * 12 MP image. The embedded EXIF thumbnail is shown underneath until the page is ready.
+ * UPDATED: Pages come from a ViewerPager; a page whose photo is still loading stays blank and
+ * is rebound when its range arrives.
+ * UPDATED: Photos whose file is flagged missing show their grid tile instead.
+ */
 public class ImageViewerAdapter extends RecyclerView.Adapter<ImageViewerAdapter.ViewerHolder> {
 
+    private static final float MAX_ZOOM = 4f; // Screen pixels per image pixel
+    private static final float DOUBLE_TAP_ZOOM = 2f;
+
     private final Context context;
-    private final List<String> imagePaths;
+    private final ViewerPager pager;
 
-    public ImageViewerAdapter(Context context, List<String> imagePaths) {
+    public ImageViewerAdapter(Context context, ViewerPager pager) {
         this.context = context;
-        this.imagePaths = imagePaths;
+        this.pager = pager;
     }
 
     @NonNull
@@ -36,39 +54,65 @@ public class ImageViewerAdapter extends RecyclerView.Adapter<ImageViewerAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewerHolder holder, int position) {
-        String path = imagePaths.get(position);
+        Photo photo = pager.getPhoto(position);
+        if (photo == null || photo.getFilePath() == null) {
+            holder.imageView.recycle();
+            Glide.with(context).clear(holder.previewView);
+            return;
+        }
+        String path = photo.getFilePath();
 
-        // FIXED: Handle Custom Folder (Content URI) vs Standard File
-        if (path != null && path.startsWith("content://")) {
-            // It is a Custom Folder URI - Load directly via Glide
-            Glide.with(context)
-                    .load(Uri.parse(path))
-                    .into(holder.imageView);
-        } else {
-            // It is a Standard Internal File
-            File file = new File(path);
-
-            // Load the image using Glide. 
-            // Note: We do NOT downsample here (no .override) because the user wants to see details.
-            if (file.exists()) {
-                Glide.with(context)
-                        .load(file)
-                        .into(holder.imageView);
-            }
+        if (photo.isFileMissing()) {
+            // The file is gone; show the packed tile we still have instead of failing a decode
+            holder.imageView.recycle();
+            holder.previewView.setVisibility(View.VISIBLE);
+            PhotoThumbnails.loadInto(context, photo, holder.previewView);
+            return;
         }
+
+        // Preview from the EXIF thumbnail (a header-only read) while the page decodes
+        holder.previewView.setVisibility(View.VISIBLE);
+        Glide.with(context)
+                .load(new EmbeddedThumbnailLoader.Source(path))
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .into(holder.previewView);
+
+        // FIXED: Handle Custom Folder (Content URI) vs Standard File
+        Uri uri = path.startsWith("content://") ? Uri.parse(path) : Uri.fromFile(new File(path));
+        holder.imageView.setImage(ImageSource.uri(uri));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewerHolder holder) {
+        super.onViewRecycled(holder);
+        // Release the decoded base image and tiles of pages that scrolled away
+        holder.imageView.recycle();
+        Glide.with(context).clear(holder.previewView);
     }
 
     @Override
     public int getItemCount() {
-        return imagePaths.size();
+        return pager.getCount();
     }
 
     static class ViewerHolder extends RecyclerView.ViewHolder {
-        final ImageView imageView;
+        final SubsamplingScaleImageView imageView;
+        final ImageView previewView;
 
         ViewerHolder(@NonNull View itemView) {
             super(itemView);
             imageView = itemView.findViewById(R.id.image_full_screen);
+            previewView = itemView.findViewById(R.id.image_preview);
+
+            imageView.setOrientation(SubsamplingScaleImageView.ORIENTATION_USE_EXIF);
+            imageView.setMaxScale(MAX_ZOOM);
+            imageView.setDoubleTapZoomScale(DOUBLE_TAP_ZOOM);
+            imageView.setOnImageEventListener(new SubsamplingScaleImageView.DefaultOnImageEventListener() {
+                @Override
+                public void onReady() {
+                    previewView.setVisibility(View.INVISIBLE);
+                }
+            });
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+package com.lunartag.app.ui.viewer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.data.PhotoQuery;
+import com.lunartag.app.model.Photo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The viewer's cursor over a PhotoQuery, in gallery order. Holds a contiguous window of light
+ * rows (id, paths, sort key) around the photo the viewer was opened on and extends it with
+ * keyset pages from Room as the user swipes towards either end. Nothing is loaded up front
+ * except the total count and the opened photo's position, both index-only counts.
+ * All state lives on the main thread; queries run on the given executor.
+ */
+public class ViewerPager {
+
+    private static final int PAGE_SIZE = 40;
+    private static final int PREFETCH_DISTANCE = 10; // Load the next page this close to the window edge
+
+    public interface Listener {
+        /** Photos for positions [start, start + count) arrived. */
+        void onRangeLoaded(int start, int count);
+
+        /** The count or positions changed (e.g. photos deleted meanwhile); rebind everything. */
+        void onChanged();
+    }
+
+    public interface OnReadyListener {
+        /** @param startPosition Position of the opened photo, or -1 if it no longer exists. */
+        void onReady(int startPosition);
+    }
+
+    private final PhotoDao dao;
+    private final PhotoQuery query;
+    private final ExecutorService executor;
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private Listener listener;
+
+    private final List<Photo> window = new ArrayList<>();
+    private int windowStart = 0; // Position of window.get(0)
+    private int total = 0;
+    private boolean loadingForward = false;
+    private boolean loadingBackward = false;
+    private boolean closed = false;
+
+    public ViewerPager(PhotoDao dao, PhotoQuery query, ExecutorService executor) {
+        this.dao = dao;
+        this.query = query;
+        this.executor = executor;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Loads the opened photo with half a page on each side.
+     */
+    public void start(long photoId, OnReadyListener onReady) {
+        executor.execute(() -> {
+            Photo anchor = dao.getPhotoById(photoId);
+            if (anchor == null) {
+                uiHandler.post(() -> {
+                    if (!closed) onReady.onReady(-1);
+                });
+                return;
+            }
+            int count = dao.countPhotos(query.count());
+            int rank = dao.countPhotos(query.positionOf(anchor));
+            List<Photo> before = dao.getPhotoPage(query.viewerPage(anchor, false, PAGE_SIZE / 2));
+            List<Photo> after = dao.getPhotoPage(query.viewerPage(anchor, true, PAGE_SIZE / 2));
+
+            uiHandler.post(() -> {
+                if (closed) return;
+                Collections.reverse(before); // Came nearest first
+                window.clear();
+                window.addAll(before);
+                window.add(anchor);
+                window.addAll(after);
+                windowStart = Math.max(0, rank - before.size());
+                // The photo may have left the query since it was tapped (e.g. just sent)
+                total = Math.max(count, windowStart + window.size());
+                onReady.onReady(windowStart + before.size());
+            });
+        });
+    }
+
+    public int getCount() {
+        return total;
+    }
+
+    /**
+     * The photo at a position, or null if that part of the query is still loading; the
+     * listener is told when it arrives. Also extends the window ahead of the user.
+     */
+    public Photo getPhoto(int position) {
+        int index = position - windowStart;
+        int windowEnd = windowStart + window.size();
+        if (index < PREFETCH_DISTANCE && windowStart > 0) {
+            loadBackward();
+        }
+        if (windowEnd - position <= PREFETCH_DISTANCE && windowEnd < total) {
+            loadForward();
+        }
+        return index >= 0 && index < window.size() ? window.get(index) : null;
+    }
+
+    /**
+     * Drops a deleted photo; later positions shift down by one.
+     */
+    public void remove(int position) {
+        int index = position - windowStart;
+        if (index < 0 || index >= window.size()) return;
+        window.remove(index);
+        total--;
+    }
+
+    /**
+     * Stops delivering results; pending queries finish and are ignored.
+     */
+    public void close() {
+        closed = true;
+        uiHandler.removeCallbacksAndMessages(null);
+    }
+
+    private void loadForward() {
+        if (loadingForward || window.isEmpty()) return;
+        loadingForward = true;
+        final Photo last = window.get(window.size() - 1);
+        executor.execute(() -> {
+            List<Photo> rows = dao.getPhotoPage(query.viewerPage(last, true, PAGE_SIZE));
+            uiHandler.post(() -> {
+                loadingForward = false;
+                // Ignore pages for a window that changed meanwhile (a delete of the edge photo)
+                if (closed || window.isEmpty() || window.get(window.size() - 1) != last) return;
+                int start = windowStart + window.size();
+                window.addAll(rows);
+                int end = start + rows.size();
+                if (end > total || (rows.size() < PAGE_SIZE && end != total)) {
+                    // The query ends earlier or later than counted (photos added or deleted)
+                    total = end;
+                    notifyChanged();
+                } else if (!rows.isEmpty() && listener != null) {
+                    listener.onRangeLoaded(start, rows.size());
+                }
+            });
+        });
+    }
+
+    private void loadBackward() {
+        if (loadingBackward || window.isEmpty()) return;
+        loadingBackward = true;
+        final Photo first = window.get(0);
+        final int limit = Math.min(PAGE_SIZE, windowStart);
+        executor.execute(() -> {
+            List<Photo> rows = dao.getPhotoPage(query.viewerPage(first, false, limit));
+            uiHandler.post(() -> {
+                loadingBackward = false;
+                if (closed || window.isEmpty() || window.get(0) != first) return;
+                Collections.reverse(rows);
+                window.addAll(0, rows);
+                windowStart -= rows.size();
+                if (rows.size() < limit) {
+                    // Photos before the window were deleted meanwhile: positions start at 0 again
+                    total -= windowStart;
+                    windowStart = 0;
+                    notifyChanged();
+                } else if (listener != null) {
+                    listener.onRangeLoaded(windowStart, rows.size());
+                }
+            });
+        });
+    }
+
+    private void notifyChanged() {
+        if (listener != null) listener.onChanged();
+    }
+}
@@ -0,0 +1,140 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Glide loader for the EXIF thumbnail embedded in a saved photo. Reads only the JPEG header
+ * (see ExifUtils.readEmbeddedThumbnail), so the viewer can show a preview while the full image
+ * is still decoding. Registered in LunarTagGlideModule.
+ */
+public class EmbeddedThumbnailLoader implements ModelLoader<EmbeddedThumbnailLoader.Source, ByteBuffer> {
+
+    /**
+     * Glide model for the embedded thumbnail of one photo (file path or content URI).
+     */
+    public static final class Source {
+        final String path;
+
+        public Source(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Source && ((Source) o).path.equals(path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "exif-thumbnail:" + path;
+        }
+    }
+
+    private final Context context;
+
+    EmbeddedThumbnailLoader(Context context) {
+        this.context = context;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull Source source, int width, int height, @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(source), new Fetcher(context, source.path));
+    }
+
+    @Override
+    public boolean handles(@NonNull Source source) {
+        return source.path != null;
+    }
+
+    private static class Fetcher implements DataFetcher<ByteBuffer> {
+        private final Context context;
+        private final String path;
+
+        Fetcher(Context context, String path) {
+            this.context = context;
+            this.path = path;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            Uri uri = path.startsWith("content://") ? Uri.parse(path) : Uri.fromFile(new File(path));
+            try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+                byte[] thumbnail = in != null ? ExifUtils.readEmbeddedThumbnail(in) : null;
+                if (thumbnail != null) {
+                    callback.onDataReady(ByteBuffer.wrap(thumbnail));
+                } else {
+                    // Photos saved before thumbnails were embedded: the full image shows as usual
+                    callback.onLoadFailed(new FileNotFoundException("No embedded thumbnail in " + path));
+                }
+            } catch (Exception e) {
+                callback.onLoadFailed(e);
+            }
+        }
+
+        @Override
+        public void cleanup() {
+            // The stream is closed in loadData
+        }
+
+        @Override
+        public void cancel() {
+            // A header read is too short to be worth interrupting
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<Source, ByteBuffer> {
+        private final Context context;
+
+        public Factory(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<Source, ByteBuffer> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new EmbeddedThumbnailLoader(context);
+        }
+
+        @Override
+        public void teardown() {
+            // Nothing to release
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.text.format.Formatter;
+import android.util.Size;
+
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+
+import java.util.Locale;
+
+/**
+ * How captured photos are encoded: file format, quality and the capture resolution requested
+ * from the camera. Chosen in Settings; the choice applies to new photos only.
+ * Every save is timed and sized, so Settings can show what each profile actually costs on
+ * this device.
+ */
+public enum EncodingProfile {
+
+    /** Full sensor resolution, near-lossless JPEG. */
+    ARCHIVE("Archive", "Full resolution JPEG, quality 95", false, 95, null),
+    /** 12 MP JPEG, visually the same as archive at about half the size. */
+    BALANCED("Balanced", "12 MP JPEG, quality 85", false, 85, new Size(4000, 3000)),
+    /** 2.7 MP WebP, small enough to share over a slow connection. Carries no EXIF. */
+    SHARE("Share-optimised", "2.7 MP WebP, quality 80, no EXIF", true, 80, new Size(1920, 1440));
+
+    public static final EncodingProfile DEFAULT = BALANCED;
+
+    private static final String PREFS_ENCODING = "LunarTagEncodingPrefs";
+    private static final String KEY_PROFILE = "profile";
+    private static final String KEY_COUNT = "_count";
+    private static final String KEY_TOTAL_MS = "_total_ms";
+    private static final String KEY_TOTAL_BYTES = "_total_bytes";
+
+    private final String label;
+    private final String description;
+    private final boolean webp;
+    private final int quality;
+    private final Size targetResolution; // Null: highest available
+
+    EncodingProfile(String label, String description, boolean webp, int quality, Size targetResolution) {
+        this.label = label;
+        this.description = description;
+        this.webp = webp;
+        this.quality = quality;
+        this.targetResolution = targetResolution;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    public boolean isJpeg() {
+        return !webp;
+    }
+
+    @SuppressWarnings("deprecation") // WEBP is the only lossy WebP before Android 11
+    public Bitmap.CompressFormat getFormat() {
+        if (!webp) return Bitmap.CompressFormat.JPEG;
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    public String getMimeType() {
+        return webp ? "image/webp" : "image/jpeg";
+    }
+
+    /** File extension including the dot. */
+    public String getExtension() {
+        return webp ? ".webp" : ".jpg";
+    }
+
+    /**
+     * The capture resolution for ImageCapture: the target size or the closest below it (above it
+     * if the camera has nothing smaller), so the sensor output is not decoded at full size only
+     * to be thrown away.
+     */
+    public ResolutionSelector resolutionSelector() {
+        ResolutionStrategy strategy = targetResolution == null
+                ? ResolutionStrategy.HIGHEST_AVAILABLE_STRATEGY
+                : new ResolutionStrategy(targetResolution,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER);
+        return new ResolutionSelector.Builder()
+                .setResolutionStrategy(strategy)
+                .build();
+    }
+
+    // --- Selection ---
+
+    public static EncodingProfile current(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_ENCODING, Context.MODE_PRIVATE);
+        String name = prefs.getString(KEY_PROFILE, DEFAULT.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT;
+        }
+    }
+
+    public static void setCurrent(Context context, EncodingProfile profile) {
+        context.getSharedPreferences(PREFS_ENCODING, Context.MODE_PRIVATE)
+                .edit().putString(KEY_PROFILE, profile.name()).apply();
+    }
+
+    // --- Measurements ---
+
+    /**
+     * Records one save with this profile: time spent encoding and writing, and the file size.
+     */
+    public void recordSave(Context context, long encodeMs, long fileSizeBytes) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_ENCODING, Context.MODE_PRIVATE);
+        prefs.edit()
+                .putLong(name() + KEY_COUNT, prefs.getLong(name() + KEY_COUNT, 0) + 1)
+                .putLong(name() + KEY_TOTAL_MS, prefs.getLong(name() + KEY_TOTAL_MS, 0) + encodeMs)
+                .putLong(name() + KEY_TOTAL_BYTES, prefs.getLong(name() + KEY_TOTAL_BYTES, 0) + fileSizeBytes)
+                .apply();
+    }
+
+    /**
+     * Average encode time and file size measured on this device, e.g.
+     * "Avg 412 ms, 2.1 MB (14 photos)", or a note that nothing was measured yet.
+     */
+    public String describeStats(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_ENCODING, Context.MODE_PRIVATE);
+        long count = prefs.getLong(name() + KEY_COUNT, 0);
+        if (count == 0) return "No photos saved with this profile yet";
+        long avgMs = prefs.getLong(name() + KEY_TOTAL_MS, 0) / count;
+        long avgBytes = prefs.getLong(name() + KEY_TOTAL_BYTES, 0) / count;
+        return String.format(Locale.US, "Avg %d ms, %s (%d photo%s)", avgMs,
+                Formatter.formatShortFileSize(context, avgBytes), count, count == 1 ? "" : "s");
+    }
+}
@@ -1,54 +1,119 @@
 package com.lunartag.app.utils;
 
-import android.location.Location;
-import androidx.exifinterface.media.ExifInterface;
+import androidx.annotation.Nullable;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
- * A utility class to handle writing custom EXIF data to image files.
+ * A utility class to read the EXIF data of saved photos.
+ * UPDATED: Reads the thumbnail embedded by ExifWriter from the JPEG header alone.
+ * UPDATED: Writing moved to ExifWriter, which splices the EXIF into the JPEG while it is
+ * encoded instead of rewriting the saved file through ExifInterface.
  */
 public class ExifUtils {
 
+    // The EXIF segment comes first in our files; give up on anything that hides it further in
+    public static final int MAX_HEADER_BYTES = 128 * 1024;
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+
     // Private constructor to prevent instantiation
     private ExifUtils() {}
 
     /**
-     * Writes all required location and timestamp metadata to the image's EXIF tags.
-     * @param filePath The absolute path to the saved JPEG image.
-     * @param realLocation The real GPS location of the capture.
-     * @param realCaptureTimestamp The real system time of the capture (in milliseconds).
-     * @param assignedTimestamp The assigned timestamp (in milliseconds).
+     * Returns the JPEG thumbnail embedded in an image's EXIF data, or null if it has none.
+     * Walks the marker segments up to the EXIF one and reads only that, so at most
+     * MAX_HEADER_BYTES of the file are read; the image data itself is never touched.
+     * The stream is not closed.
      */
-    public static void writeExifData(String filePath, Location realLocation, long realCaptureTimestamp, long assignedTimestamp) {
+    @Nullable
+    public static byte[] readEmbeddedThumbnail(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != MARKER_SOI) return null;
+
+        long consumed = 2;
         try {
-            ExifInterface exifInterface = new ExifInterface(filePath);
+            while (consumed < MAX_HEADER_BYTES) {
+                if (in.readUnsignedByte() != 0xFF) return null;
+                int marker = in.readUnsignedByte();
+                while (marker == 0xFF) marker = in.readUnsignedByte(); // Fill bytes
+                if (marker == MARKER_SOS || marker == MARKER_EOI) return null;
 
-            // 1. Write standard GPS tags with the real location data
-            if (realLocation != null) {
-                exifInterface.setGpsInfo(realLocation);
+                int length = in.readUnsignedShort() - 2;
+                consumed += 4;
+                if (length < 0 || consumed + length > MAX_HEADER_BYTES) return null;
+
+                if (marker == MARKER_APP1) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    byte[] thumbnail = thumbnailFromExif(segment);
+                    if (thumbnail != null) return thumbnail;
+                } else {
+                    skipFully(in, length);
+                }
+                consumed += length;
             }
+        } catch (EOFException e) {
+            return null;
+        }
+        return null;
+    }
 
-            // 2. Write the standard DateTimeOriginal tag with the REAL capture time
-            SimpleDateFormat exifSdf = new SimpleDateFormat("yyyy:MM:dd HH:mm:ss", Locale.US);
-            exifSdf.setTimeZone(TimeZone.getDefault());
-            exifInterface.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, exifSdf.format(new Date(realCaptureTimestamp)));
-            exifInterface.setAttribute(ExifInterface.TAG_DATETIME_DIGITIZED, exifSdf.format(new Date(realCaptureTimestamp)));
+    /**
+     * Finds IFD1's JPEGInterchangeFormat/Length in an APP1 payload ("Exif\0\0" + TIFF).
+     */
+    @Nullable
+    private static byte[] thumbnailFromExif(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') return null;
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+            return null;
+        }
 
-            // 3. Write a custom ImageDescription tag containing a JSON string for auditing
-            // This stores both the real and assigned timestamps clearly for verification.
-            String jsonPayload = "{\"assignedTimestamp\":" + assignedTimestamp + ",\"captureTimestampReal\":" + realCaptureTimestamp + "}";
-            exifInterface.setAttribute(ExifInterface.TAG_IMAGE_DESCRIPTION, jsonPayload);
+        int limit = tiff.limit();
+        int ifd0 = tiff.getInt(4);
+        if (ifd0 < 8 || ifd0 + 2 > limit) return null;
+        int ifd0Entries = tiff.getShort(ifd0) & 0xFFFF;
+        int nextPointer = ifd0 + 2 + ifd0Entries * 12;
+        if (nextPointer + 4 > limit) return null;
+        int ifd1 = tiff.getInt(nextPointer);
+        if (ifd1 < 8 || ifd1 + 2 > limit) return null;
 
-            // Save the changes to the file
-            exifInterface.saveAttributes();
+        int entries = tiff.getShort(ifd1) & 0xFFFF;
+        int offset = -1;
+        int length = -1;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd1 + 2 + i * 12;
+            if (entry + 12 > limit) return null;
+            int tag = tiff.getShort(entry) & 0xFFFF;
+            int type = tiff.getShort(entry + 2) & 0xFFFF;
+            int value = type == 3 ? tiff.getShort(entry + 8) & 0xFFFF : tiff.getInt(entry + 8);
+            if (tag == 0x0201) offset = value;
+            if (tag == 0x0202) length = value;
+        }
+        if (offset <= 0 || length <= 0 || offset + length > limit) return null;
+
+        byte[] thumbnail = new byte[length];
+        tiff.position(offset);
+        tiff.get(thumbnail);
+        return thumbnail;
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static void skipFully(DataInputStream in, int count) throws IOException {
+        while (count > 0) {
+            int skipped = in.skipBytes(count);
+            if (skipped <= 0) throw new EOFException();
+            count -= skipped;
         }
     }
 }
@@ -0,0 +1,388 @@
+package com.lunartag.app.utils;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Builds an EXIF (APP1) segment and splices it into a JPEG while Bitmap.compress() writes it,
+ * so saved photos carry metadata without a second pass over the file.
+ * Currently writes IFD0 (orientation) and IFD1 with a small embedded thumbnail, which galleries
+ * and our own viewer can show from the first few kilobytes of the file (see
+ * ExifUtils.readEmbeddedThumbnail).
+ * UPDATED: Encodes with an EncodingProfile. Only JPEG output carries the segment; WebP is
+ * written as is.
+ * UPDATED: Also writes the capture time (IFD0 DateTime, Exif IFD DateTimeOriginal/Digitized
+ * and their UTC offset), the GPS IFD and the audit ImageDescription, replacing
+ * ExifUtils.writeExifData, which rewrote the whole file through ExifInterface afterwards.
+ */
+public final class ExifWriter {
+
+    public static final int THUMBNAIL_SIZE = 240; // Long side in pixels
+    private static final int[] THUMBNAIL_QUALITY_STEPS = {75, 60, 45};
+    // An APP1 segment is at most 64 KB including its header and IFDs
+    private static final int MAX_THUMBNAIL_BYTES = 60 * 1024;
+    private static final int MAX_SEGMENT_LENGTH = 0xFFFF;
+
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+    private static final int TIFF_HEADER_SIZE = 8;
+
+    // TIFF tags and types
+    private static final int TAG_COMPRESSION = 0x0103;
+    private static final int TAG_IMAGE_DESCRIPTION = 0x010E;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATETIME = 0x0132;
+    private static final int TAG_JPEG_OFFSET = 0x0201;
+    private static final int TAG_JPEG_LENGTH = 0x0202;
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_GPS_IFD = 0x8825;
+    // Exif IFD
+    private static final int TAG_DATETIME_ORIGINAL = 0x9003;
+    private static final int TAG_DATETIME_DIGITIZED = 0x9004;
+    private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+    // GPS IFD
+    private static final int TAG_GPS_VERSION = 0x0000;
+    private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+    private static final int TAG_GPS_LATITUDE = 0x0002;
+    private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+    private static final int TAG_GPS_LONGITUDE = 0x0004;
+
+    private static final short TYPE_BYTE = 1;
+    private static final short TYPE_ASCII = 2;
+    private static final short TYPE_SHORT = 3;
+    private static final short TYPE_LONG = 4;
+    private static final short TYPE_RATIONAL = 5;
+    private static final int COMPRESSION_JPEG = 6;
+    private static final int ORIENTATION_NORMAL = 1; // Bitmaps are saved upright
+    private static final int GPS_SECONDS_DENOMINATOR = 10000;
+
+    private byte[] thumbnail;
+    private String dateTime; // "yyyy:MM:dd HH:mm:ss", local time
+    private String utcOffset; // "+hh:mm"
+    private String description;
+    private boolean hasLocation = false;
+    private double latitude;
+    private double longitude;
+
+    /**
+     * Records when the photo was taken, in the device's time zone.
+     */
+    public ExifWriter setCaptureTime(long timestampMs) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestampMs);
+        StringBuilder sb = new StringBuilder(19);
+        pad(sb, calendar.get(Calendar.YEAR), 4).append(':');
+        pad(sb, calendar.get(Calendar.MONTH) + 1, 2).append(':');
+        pad(sb, calendar.get(Calendar.DAY_OF_MONTH), 2).append(' ');
+        pad(sb, calendar.get(Calendar.HOUR_OF_DAY), 2).append(':');
+        pad(sb, calendar.get(Calendar.MINUTE), 2).append(':');
+        pad(sb, calendar.get(Calendar.SECOND), 2);
+        dateTime = sb.toString();
+
+        int offsetMinutes = (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET)) / 60000;
+        sb.setLength(0);
+        sb.append(offsetMinutes < 0 ? '-' : '+');
+        pad(sb, Math.abs(offsetMinutes) / 60, 2).append(':');
+        pad(sb, Math.abs(offsetMinutes) % 60, 2);
+        utcOffset = sb.toString();
+        return this;
+    }
+
+    /**
+     * Records where the photo was taken, in decimal degrees.
+     */
+    public ExifWriter setLocation(double latitude, double longitude) {
+        this.hasLocation = true;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        return this;
+    }
+
+    /**
+     * Sets the ImageDescription, e.g. the audit JSON with real and assigned timestamps.
+     * Non-ASCII characters are replaced, as the tag is ASCII only.
+     */
+    public ExifWriter setDescription(String description) {
+        this.description = description;
+        return this;
+    }
+
+    /**
+     * Embeds a thumbnail of the given (already watermarked) photo.
+     */
+    public ExifWriter setThumbnail(Bitmap source) {
+        float ratio = (float) THUMBNAIL_SIZE / Math.max(source.getWidth(), source.getHeight());
+        Bitmap small = ratio < 1
+                ? Bitmap.createScaledBitmap(source, Math.max(1, Math.round(source.getWidth() * ratio)),
+                        Math.max(1, Math.round(source.getHeight() * ratio)), true)
+                : source;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            for (int quality : THUMBNAIL_QUALITY_STEPS) {
+                out.reset();
+                small.compress(Bitmap.CompressFormat.JPEG, quality, out);
+                if (out.size() <= MAX_THUMBNAIL_BYTES) {
+                    thumbnail = out.toByteArray();
+                    break;
+                }
+            }
+        } finally {
+            if (small != source) small.recycle();
+        }
+        return this;
+    }
+
+    /**
+     * Compresses the bitmap with the profile's format and quality. JPEG gets the EXIF segment;
+     * other formats are written without metadata. Does not close out.
+     */
+    public void compress(Bitmap bitmap, EncodingProfile profile, OutputStream out) throws IOException {
+        if (profile.isJpeg()) {
+            compress(bitmap, profile.getQuality(), out);
+        } else {
+            bitmap.compress(profile.getFormat(), profile.getQuality(), out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Compresses the bitmap as JPEG into out, with the EXIF segment right after the SOI marker.
+     * Does not close out.
+     */
+    public void compress(Bitmap bitmap, int quality, OutputStream out) throws IOException {
+        OutputStream spliced = new SegmentInserter(out, buildSegment());
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, spliced);
+        spliced.flush();
+    }
+
+    /**
+     * The complete APP1 segment: marker, length, "Exif\0\0" and a big-endian TIFF structure
+     * laid out as IFD0, Exif IFD, GPS IFD, IFD1, each followed by its own out-of-line values.
+     */
+    byte[] buildSegment() {
+        Ifd ifd0 = new Ifd();
+        if (description != null) ifd0.add(TAG_IMAGE_DESCRIPTION, TYPE_ASCII, ascii(description));
+        ifd0.addShort(TAG_ORIENTATION, ORIENTATION_NORMAL);
+        if (dateTime != null) ifd0.add(TAG_DATETIME, TYPE_ASCII, ascii(dateTime));
+        Ifd.Entry exifPointer = dateTime != null ? ifd0.addLong(TAG_EXIF_IFD, 0) : null;
+        Ifd.Entry gpsPointer = hasLocation ? ifd0.addLong(TAG_GPS_IFD, 0) : null;
+
+        Ifd exifIfd = null;
+        if (dateTime != null) {
+            exifIfd = new Ifd();
+            exifIfd.add(TAG_DATETIME_ORIGINAL, TYPE_ASCII, ascii(dateTime));
+            exifIfd.add(TAG_DATETIME_DIGITIZED, TYPE_ASCII, ascii(dateTime));
+            exifIfd.add(TAG_OFFSET_TIME_ORIGINAL, TYPE_ASCII, ascii(utcOffset));
+        }
+
+        Ifd gpsIfd = null;
+        if (hasLocation) {
+            gpsIfd = new Ifd();
+            gpsIfd.add(TAG_GPS_VERSION, TYPE_BYTE, new byte[]{2, 2, 0, 0});
+            gpsIfd.add(TAG_GPS_LATITUDE_REF, TYPE_ASCII, ascii(latitude < 0 ? "S" : "N"));
+            gpsIfd.add(TAG_GPS_LATITUDE, TYPE_RATIONAL, degreesMinutesSeconds(latitude));
+            gpsIfd.add(TAG_GPS_LONGITUDE_REF, TYPE_ASCII, ascii(longitude < 0 ? "W" : "E"));
+            gpsIfd.add(TAG_GPS_LONGITUDE, TYPE_RATIONAL, degreesMinutesSeconds(longitude));
+        }
+
+        // Offsets are relative to the TIFF header
+        int offset = TIFF_HEADER_SIZE;
+        int ifd0Offset = offset;
+        offset += ifd0.size();
+        if (exifIfd != null) {
+            exifPointer.setLong(offset);
+            offset += exifIfd.size();
+        }
+        if (gpsIfd != null) {
+            gpsPointer.setLong(offset);
+            offset += gpsIfd.size();
+        }
+
+        // IFD1: the thumbnail, if it still fits in the segment
+        Ifd ifd1 = null;
+        int ifd1Offset = 0;
+        if (thumbnail != null
+                && 4 + EXIF_HEADER.length + offset + ifdSize(3) + thumbnail.length <= MAX_SEGMENT_LENGTH) {
+            ifd1 = new Ifd();
+            ifd1.addShort(TAG_COMPRESSION, COMPRESSION_JPEG);
+            ifd1.addLong(TAG_JPEG_OFFSET, offset + ifdSize(3));
+            ifd1.addLong(TAG_JPEG_LENGTH, thumbnail.length);
+            ifd1Offset = offset;
+            offset += ifd1.size() + thumbnail.length;
+        }
+        int tiffSize = offset;
+
+        ByteBuffer segment = ByteBuffer.allocate(4 + EXIF_HEADER.length + tiffSize); // Big-endian
+        segment.put((byte) 0xFF).put((byte) 0xE1);
+        segment.putShort((short) (2 + EXIF_HEADER.length + tiffSize));
+        segment.put(EXIF_HEADER);
+
+        // TIFF header: "MM", 42, offset of IFD0
+        segment.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(ifd0Offset);
+
+        ifd0.write(segment, ifd0Offset, ifd1Offset);
+        if (exifIfd != null) exifIfd.write(segment, exifPointer.longValue(), 0);
+        if (gpsIfd != null) gpsIfd.write(segment, gpsPointer.longValue(), 0);
+        if (ifd1 != null) {
+            ifd1.write(segment, ifd1Offset, 0);
+            segment.put(thumbnail);
+        }
+        return segment.array();
+    }
+
+    private static int ifdSize(int entries) {
+        return entries == 0 ? 0 : 2 + entries * 12 + 4;
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int value, int digits) {
+        String text = Integer.toString(value);
+        for (int i = text.length(); i < digits; i++) sb.append('0');
+        return sb.append(text);
+    }
+
+    /**
+     * NUL-terminated ASCII, with anything outside printable ASCII replaced by '?'.
+     */
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length() + 1];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            bytes[i] = (byte) (c >= 0x20 && c < 0x7F ? c : '?');
+        }
+        return bytes;
+    }
+
+    /**
+     * Three RATIONALs: whole degrees, whole minutes and seconds to 1/10000.
+     */
+    private static byte[] degreesMinutesSeconds(double decimalDegrees) {
+        double value = Math.abs(decimalDegrees);
+        int degrees = (int) value;
+        value = (value - degrees) * 60;
+        int minutes = (int) value;
+        long seconds = Math.round((value - minutes) * 60 * GPS_SECONDS_DENOMINATOR);
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.putInt(degrees).putInt(1);
+        buffer.putInt(minutes).putInt(1);
+        buffer.putInt((int) seconds).putInt(GPS_SECONDS_DENOMINATOR);
+        return buffer.array();
+    }
+
+    /**
+     * One image file directory: entries in ascending tag order, then the values that do not fit
+     * in an entry's 4-byte field, each padded to an even length (TIFF word alignment).
+     */
+    private static final class Ifd {
+
+        static final class Entry {
+            final int tag;
+            final short type;
+            final int count;
+            byte[] value;
+
+            Entry(int tag, short type, int count, byte[] value) {
+                this.tag = tag;
+                this.type = type;
+                this.count = count;
+                this.value = value;
+            }
+
+            void setLong(int v) {
+                value = ByteBuffer.allocate(4).putInt(v).array();
+            }
+
+            int longValue() {
+                return ByteBuffer.wrap(value).getInt();
+            }
+        }
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        Entry add(int tag, short type, byte[] value) {
+            int unit = type == TYPE_SHORT ? 2 : type == TYPE_LONG ? 4 : type == TYPE_RATIONAL ? 8 : 1;
+            Entry entry = new Entry(tag, type, value.length / unit, value);
+            entries.add(entry);
+            return entry;
+        }
+
+        Entry addShort(int tag, int value) {
+            return add(tag, TYPE_SHORT, new byte[]{(byte) (value >> 8), (byte) value});
+        }
+
+        Entry addLong(int tag, int value) {
+            return add(tag, TYPE_LONG, ByteBuffer.allocate(4).putInt(value).array());
+        }
+
+        int size() {
+            int size = ifdSize(entries.size());
+            for (Entry entry : entries) {
+                if (entry.value.length > 4) size += (entry.value.length + 1) & ~1;
+            }
+            return size;
+        }
+
+        /**
+         * Writes the directory at the buffer's position, which must be offset bytes past the
+         * TIFF header.
+         */
+        void write(ByteBuffer buffer, int offset, int nextIfdOffset) {
+            int dataOffset = offset + ifdSize(entries.size());
+            buffer.putShort((short) entries.size());
+            for (Entry entry : entries) {
+                buffer.putShort((short) entry.tag).putShort(entry.type).putInt(entry.count);
+                if (entry.value.length <= 4) {
+                    buffer.put(entry.value); // Left-justified in the value field
+                    for (int i = entry.value.length; i < 4; i++) buffer.put((byte) 0);
+                } else {
+                    buffer.putInt(dataOffset);
+                    dataOffset += (entry.value.length + 1) & ~1;
+                }
+            }
+            buffer.putInt(nextIfdOffset);
+            for (Entry entry : entries) {
+                if (entry.value.length <= 4) continue;
+                buffer.put(entry.value);
+                if ((entry.value.length & 1) != 0) buffer.put((byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Passes a JPEG stream through, writing the segment right after the 2-byte SOI marker.
+     */
+    private static final class SegmentInserter extends FilterOutputStream {
+        private final byte[] segment;
+        private int written = 0;
+
+        SegmentInserter(OutputStream out, byte[] segment) {
+            super(out);
+            this.segment = segment;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (written < 2 && ++written == 2) out.write(segment);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (written >= 2) {
+                out.write(b, off, len);
+                return;
+            }
+            int head = Math.min(2 - written, len);
+            out.write(b, off, head);
+            written += head;
+            if (written == 2) out.write(segment);
+            if (len > head) out.write(b, off + head, len - head);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.lunartag.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Frame-time statistics for scrolling a list, from the platform FrameMetrics API.
+ * Frames are recorded while the list scrolls; when it settles, a summary (frame count,
+ * p50/p90/p99 frame time and the share of frames over the display's frame budget) goes to the
+ * live log. Lets scrolling changes be compared on a real device and a real library.
+ * Used by GalleryFragment for the timeline grid, only while admin mode is on, as every scroll
+ * gesture writes a log line.
+ * FIXED: The frame budget comes from the list's own display when a report is made, not the
+ * deprecated default display at construction (the refresh rate can change in between).
+ */
+public final class FrameStats implements Window.OnFrameMetricsAvailableListener {
+
+    private static final int MAX_FRAMES = 4096; // Per scroll gesture; later frames are dropped
+
+    private final Window window;
+    private final RecyclerView list;
+    private final String label;
+    private final long[] durations = new long[MAX_FRAMES];
+    private int count = 0;
+    private boolean recording = false;
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                recording = false;
+                report();
+            } else {
+                recording = true;
+            }
+        }
+    };
+
+    private FrameStats(Window window, RecyclerView list, String label) {
+        this.window = window;
+        this.list = list;
+        this.label = label;
+    }
+
+    /**
+     * Starts recording the frames of every scroll of the list. Call stop() when the view goes away.
+     */
+    public static FrameStats trackScrolling(Window window, RecyclerView list, String label) {
+        FrameStats stats = new FrameStats(window, list, label);
+        // Delivered on the main thread, where all of this object's state lives
+        window.addOnFrameMetricsAvailableListener(stats, new Handler(Looper.getMainLooper()));
+        list.addOnScrollListener(stats.scrollListener);
+        return stats;
+    }
+
+    public void stop() {
+        window.removeOnFrameMetricsAvailableListener(this);
+        list.removeOnScrollListener(scrollListener);
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        if (!recording || count >= MAX_FRAMES) return;
+        durations[count++] = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+    }
+
+    private void report() {
+        if (count == 0) return;
+        long[] sorted = Arrays.copyOf(durations, count);
+        Arrays.sort(sorted);
+        long frameBudgetNs = frameBudgetNs();
+        int janky = 0;
+        for (long duration : sorted) {
+            if (duration > frameBudgetNs) janky++;
+        }
+        LogBuffer.d(String.format(Locale.US,
+                "Frames: %s scroll, %d frames, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, %d over budget (%.1f%%)",
+                label, count, percentileMs(sorted, 50), percentileMs(sorted, 90), percentileMs(sorted, 99),
+                janky, janky * 100f / count));
+        count = 0;
+    }
+
+    /**
+     * One frame at the current refresh rate of the display showing the list (60 Hz if detached).
+     */
+    private long frameBudgetNs() {
+        Display display = list.getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 0f;
+        return (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    private static double percentileMs(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100.0) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.lunartag.app.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Minimal geohash encoder for the "photos near here" lookup.
+ * A geohash is a base32 string where every extra character narrows the cell, so all points
+ * inside a cell share its string as a prefix. Stored in the indexed 'photos.geohash' column,
+ * a proximity search becomes a handful of index range scans instead of a table scan.
+ */
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    // Precision stored per photo: cells of roughly 4.8m x 4.8m
+    public static final int STORAGE_PRECISION = 9;
+
+    private static final double METERS_PER_DEGREE_LAT = 110_540.0;
+    private static final double METERS_PER_DEGREE_LON = 111_320.0; // At the equator
+
+    private GeoHash() {}
+
+    /**
+     * Encodes a coordinate into a geohash of the given length.
+     */
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true; // Bits alternate, starting with longitude
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Returns the geohash stored for a photo, or null if it has no usable location (0,0).
+     */
+    public static String forPhoto(double lat, double lon) {
+        if (lat == 0 && lon == 0) return null;
+        return encode(lat, lon, STORAGE_PRECISION);
+    }
+
+    /**
+     * Height of a cell of the given precision, in degrees of latitude.
+     */
+    static double cellHeightDegrees(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * Width of a cell of the given precision, in degrees of longitude.
+     */
+    static double cellWidthDegrees(int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    /**
+     * Returns the cell prefixes whose union covers every point within radiusMeters of the centre:
+     * the cell containing the centre plus its 8 neighbours, at the finest precision whose cells
+     * are still at least radiusMeters on each side.
+     */
+    public static Set<String> coveringCells(double lat, double lon, double radiusMeters) {
+        double cosLat = Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        int precision = STORAGE_PRECISION;
+        while (precision > 1) {
+            double heightMeters = cellHeightDegrees(precision) * METERS_PER_DEGREE_LAT;
+            double widthMeters = cellWidthDegrees(precision) * METERS_PER_DEGREE_LON * cosLat;
+            if (heightMeters >= radiusMeters && widthMeters >= radiusMeters) break;
+            precision--;
+        }
+
+        double dLat = cellHeightDegrees(precision);
+        double dLon = cellWidthDegrees(precision);
+        Set<String> cells = new LinkedHashSet<>();
+        for (int y = -1; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                double cellLat = Math.max(-90, Math.min(90, lat + y * dLat));
+                double cellLon = wrapLongitude(lon + x * dLon);
+                cells.add(encode(cellLat, cellLon, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static double wrapLongitude(double lon) {
+        if (lon >= 180) return lon - 360;
+        if (lon < -180) return lon + 360;
+        return lon;
+    }
+
+    /**
+     * Metres per degree of longitude at the given latitude (equirectangular approximation).
+     */
+    public static double metersPerDegreeLon(double lat) {
+        return METERS_PER_DEGREE_LON * Math.cos(Math.toRadians(lat));
+    }
+
+    public static double metersPerDegreeLat() {
+        return METERS_PER_DEGREE_LAT;
+    }
+}
@@ -1,7 +1,6 @@
 package com.lunartag.app.utils;
 
 import android.content.Context;
-import android.content.Intent;
 import android.location.Address;
 import android.location.Geocoder;
 import android.location.Location;
@@ -75,19 +74,19 @@ public class GeocodingUtils {
                     }
 
                     if (addressLine != null && !addressLine.isEmpty()) {
-                        broadcastLog(context, "System: Native Geocoder Success on attempt " + i, "info");
+                        liveLog("System: Native Geocoder Success on attempt " + i, "info");
                         // FIX ISSUE #2: Remove brackets
                         return addressLine.replace("(", "").replace(")", "");
                     }
                 }
             } catch (Exception e) {
-                broadcastLog(context, "Warning: Native Geocoder Attempt " + i + " failed (" + e.getMessage() + ")", "error");
+                liveLog("Warning: Native Geocoder Attempt " + i + " failed (" + e.getMessage() + ")", "error");
                 try { Thread.sleep(200); } catch (InterruptedException ignored) {}
             }
         }
 
         // --- ATTEMPT 2: OPENSTREETMAP (NOMINATIM) FALLBACK ---
-        broadcastLog(context, "System: Native Geocoder Exhausted. Switching to OSM Fallback...", "error");
+        liveLog("System: Native Geocoder Exhausted. Switching to OSM Fallback...", "error");
         
         try {
             String urlString = "https://nominatim.openstreetmap.org/reverse?format=json&lat=" + lat + "&lon=" + lon + "&zoom=18&addressdetails=1";
@@ -110,15 +109,15 @@ public class GeocodingUtils {
                 JSONObject jsonObject = new JSONObject(response.toString());
                 if (jsonObject.has("display_name")) {
                     String osmAddress = jsonObject.getString("display_name");
-                    broadcastLog(context, "System: OSM Fallback Success.", "info");
+                    liveLog("System: OSM Fallback Success.", "info");
                     // FIX ISSUE #2: Remove brackets
                     return osmAddress.replace("(", "").replace(")", "");
                 }
             } else {
-                broadcastLog(context, "Error: OSM API returned code " + conn.getResponseCode(), "error");
+                liveLog("Error: OSM API returned code " + conn.getResponseCode(), "error");
             }
         } catch (Exception e) {
-            broadcastLog(context, "Error: OSM Fallback failed (" + e.getMessage() + ")", "error");
+            liveLog("Error: OSM Fallback failed (" + e.getMessage() + ")", "error");
         }
 
         return "Address Not Found";
@@ -221,17 +220,9 @@ public class GeocodingUtils {
     }
 
     /**
-     * Helper to broadcast messages to the MainActivity Live Log.
+     * Helper to post messages to the MainActivity Live Log (in-process LogBuffer).
      */
-    private static void broadcastLog(Context context, String message, String type) {
-        try {
-            Intent intent = new Intent("com.lunartag.ACTION_LOG_UPDATE");
-            intent.putExtra("log_msg", message);
-            intent.putExtra("log_type", type);
-            intent.setPackage(context.getPackageName());
-            context.sendBroadcast(intent);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to broadcast log: " + e.getMessage());
-        }
+    private static void liveLog(String message, String type) {
+        LogBuffer.log("error".equals(type) ? LogBuffer.LEVEL_ERROR : LogBuffer.LEVEL_INFO, message);
     }
-}
\ No newline at end of file
+}
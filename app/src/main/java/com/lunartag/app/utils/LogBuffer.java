@@ -0,0 +1,268 @@
+package com.lunartag.app.utils;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-process live log for the Logs screen.
+ * Replaces the per-line "com.lunartag.ACTION_LOG_UPDATE" broadcasts: writers claim a sequence
+ * number and publish into a fixed-size ring without locks or IPC, and listeners are called
+ * directly on the writer's thread. Old entries are overwritten once the ring is full.
+ * Optionally, entries are also spilled to a small rotating file on a background thread.
+ */
+public final class LogBuffer {
+
+    private static final String TAG = "LunarTagLive";
+
+    // Severity levels
+    public static final int LEVEL_DEBUG = 0;
+    public static final int LEVEL_INFO = 1;
+    public static final int LEVEL_WARN = 2;
+    public static final int LEVEL_ERROR = 3;
+
+    // Ring size must be a power of two so the slot is a simple mask of the sequence
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+
+    // Disk spill settings
+    private static final String SPILL_FILE_NAME = "live.log";
+    private static final long SPILL_MAX_BYTES = 1024 * 1024; // Rotated to live.log.1 beyond this
+    private static final long SPILL_INTERVAL_MS = 1000;
+
+    private static final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong nextSequence = new AtomicLong(0);
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final ConcurrentLinkedQueue<Entry> spillQueue = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean spillScheduled = new AtomicBoolean(false);
+    private static volatile File spillDir;
+    private static ScheduledExecutorService spillExecutor;
+
+    private LogBuffer() {}
+
+    /**
+     * One immutable log line.
+     */
+    public static final class Entry {
+        public final long sequence;
+        public final long timestamp;
+        public final int level;
+        public final String message;
+
+        Entry(long sequence, long timestamp, int level, String message) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+
+    /**
+     * Called on the writer's thread for every new entry. Implementations must be cheap
+     * and hop to the main thread themselves if they touch views.
+     */
+    public interface Listener {
+        void onLog(Entry entry);
+    }
+
+    // --- Writers ---
+
+    public static void d(String message) {
+        log(LEVEL_DEBUG, message);
+    }
+
+    public static void i(String message) {
+        log(LEVEL_INFO, message);
+    }
+
+    public static void w(String message) {
+        log(LEVEL_WARN, message);
+    }
+
+    public static void e(String message) {
+        log(LEVEL_ERROR, message);
+    }
+
+    /**
+     * Logs a message, deriving the severity from its wording the same way the old
+     * broadcast-based console did ("error", "fail", "missing" are errors, "warning" is a warning).
+     */
+    public static void log(String message) {
+        log(classify(message), message);
+    }
+
+    public static void log(int level, String message) {
+        if (message == null) return;
+
+        long sequence = nextSequence.getAndIncrement();
+        Entry entry = new Entry(sequence, System.currentTimeMillis(), level, message);
+        slots.set((int) (sequence & MASK), entry);
+
+        // Also print to system log for ADB debugging
+        if (level >= LEVEL_ERROR) {
+            Log.e(TAG, message);
+        } else {
+            Log.d(TAG, message);
+        }
+
+        for (Listener listener : listeners) {
+            try {
+                listener.onLog(entry);
+            } catch (Exception ex) {
+                Log.e(TAG, "Log listener failed: " + ex.getMessage());
+            }
+        }
+
+        if (spillDir != null) {
+            spillQueue.offer(entry);
+            if (spillScheduled.compareAndSet(false, true)) {
+                spillExecutor.schedule(LogBuffer::drainSpill, SPILL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public static int classify(String message) {
+        if (message == null) return LEVEL_INFO;
+        String lower = message.toLowerCase(Locale.US);
+        if (lower.contains("error") || lower.contains("fail") || lower.contains("missing")) {
+            return LEVEL_ERROR;
+        }
+        if (lower.contains("warning")) {
+            return LEVEL_WARN;
+        }
+        return LEVEL_INFO;
+    }
+
+    // --- Readers ---
+
+    /**
+     * The sequence number the next entry will get. Entries are in [getOldestSequence(), this).
+     */
+    public static long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * The oldest sequence number that may still be held in the ring.
+     */
+    public static long getOldestSequence() {
+        return Math.max(0, nextSequence.get() - CAPACITY);
+    }
+
+    /**
+     * Returns the entry with the given sequence number, or null if it has been
+     * overwritten or has not been published yet.
+     */
+    public static Entry get(long sequence) {
+        if (sequence < 0) return null;
+        Entry entry = slots.get((int) (sequence & MASK));
+        return (entry != null && entry.sequence == sequence) ? entry : null;
+    }
+
+    /**
+     * Builds a plain-text copy of everything currently in the ring, oldest first.
+     */
+    public static String dumpText() {
+        StringBuilder sb = new StringBuilder();
+        long end = getNextSequence();
+        for (long seq = getOldestSequence(); seq < end; seq++) {
+            Entry entry = get(seq);
+            if (entry != null) {
+                sb.append(entry.message).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static String levelName(int level) {
+        switch (level) {
+            case LEVEL_DEBUG: return "DEBUG";
+            case LEVEL_WARN: return "WARN";
+            case LEVEL_ERROR: return "ERROR";
+            default: return "INFO";
+        }
+    }
+
+    // --- Optional disk spill ---
+
+    /**
+     * Enables spilling every entry to {@code dir/live.log}. Writes happen on a background
+     * thread in batches; the file is rotated once it grows past 1MB.
+     */
+    public static synchronized void enableSpill(File dir) {
+        if (spillDir != null) return;
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Cannot create log spill directory: " + dir);
+            return;
+        }
+        spillExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "LogBufferSpill");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        spillDir = dir;
+    }
+
+    /**
+     * Returns the active spill file, or null if spilling is disabled.
+     */
+    public static File getSpillFile() {
+        File dir = spillDir;
+        return dir == null ? null : new File(dir, SPILL_FILE_NAME);
+    }
+
+    private static void drainSpill() {
+        spillScheduled.set(false);
+        File file = getSpillFile();
+        if (file == null) return;
+
+        if (file.length() > SPILL_MAX_BYTES) {
+            File rotated = new File(file.getParentFile(), SPILL_FILE_NAME + ".1");
+            if (rotated.exists()) rotated.delete();
+            file.renameTo(rotated);
+        }
+
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
+            Entry entry;
+            while ((entry = spillQueue.poll()) != null) {
+                writer.write(timeFormat.format(new Date(entry.timestamp)));
+                writer.write(' ');
+                writer.write(levelName(entry.level));
+                writer.write(' ');
+                writer.write(entry.message);
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            Log.e(TAG, "Log spill failed: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.AuditLogDao;
+import com.lunartag.app.data.AuditLogger;
+import com.lunartag.app.model.AuditActionCount;
+import com.lunartag.app.model.AuditLog;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the live log ring and the 'audit_logs' table into a gzip'd text file that can be shared.
+ * Nothing is collected in memory first: ring entries are written one by one, and the audit table
+ * is read in keyset pages of PAGE_SIZE rows, so memory use stays flat however large the history is.
+ * Must be called on a background thread.
+ */
+public class LogExporter {
+
+    private static final String TAG = "LogExporter";
+
+    // Matches the <cache-path> entry in file_provider_paths.xml
+    public static final String EXPORT_DIR = "exports";
+
+    private static final int PAGE_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private LogExporter() {}
+
+    /**
+     * Writes a new export file into the cache directory, replacing any previous export.
+     * @return The .txt.gz file, ready to be shared through the FileProvider.
+     */
+    public static File export(Context context) throws IOException {
+        Context appContext = context.getApplicationContext();
+
+        // Make sure audit events that are still queued are part of the export
+        AuditLogger.getInstance(appContext).flushNow();
+        AuditLogDao auditLogDao = AppDatabase.getDatabase(appContext).auditLogDao();
+
+        File dir = new File(appContext.getCacheDir(), EXPORT_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create export directory: " + dir);
+        }
+        deleteOldExports(dir);
+
+        SimpleDateFormat fileFormat = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        File file = new File(dir, "lunartag_logs_" + fileFormat.format(new Date()) + ".txt.gz");
+
+        // Snapshot the ring window once so the header counts and the body describe the same lines
+        long ringEnd = LogBuffer.getNextSequence();
+        long ringStart = LogBuffer.getOldestSequence();
+        int[] severityCounts = new int[LogBuffer.LEVEL_ERROR + 1];
+        for (long seq = ringStart; seq < ringEnd; seq++) {
+            LogBuffer.Entry entry = LogBuffer.get(seq);
+            if (entry != null) {
+                severityCounts[Math.max(0, Math.min(entry.level, LogBuffer.LEVEL_ERROR))]++;
+            }
+        }
+        List<AuditActionCount> actionCounts = auditLogDao.getActionCounts();
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+
+            // --- Summary header ---
+            writer.write("LunarTag log export\n");
+            writer.write("Created: " + timeFormat.format(new Date()) + "\n");
+            writer.write("Device: " + Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + ")\n");
+            writer.write("\nLive log lines by severity:\n");
+            for (int level = LogBuffer.LEVEL_DEBUG; level <= LogBuffer.LEVEL_ERROR; level++) {
+                writer.write("  " + LogBuffer.levelName(level) + ": " + severityCounts[level] + "\n");
+            }
+            writer.write("\nAudit events by action:\n");
+            int auditTotal = 0;
+            for (AuditActionCount row : actionCounts) {
+                writer.write("  " + row.action + ": " + row.count + "\n");
+                auditTotal += row.count;
+            }
+            writer.write("  TOTAL: " + auditTotal + "\n");
+
+            // --- Live log ---
+            writer.write("\n=== LIVE LOG ===\n");
+            for (long seq = ringStart; seq < ringEnd; seq++) {
+                LogBuffer.Entry entry = LogBuffer.get(seq);
+                if (entry == null) continue; // Overwritten while exporting
+                writer.write(timeFormat.format(new Date(entry.timestamp)));
+                writer.write(' ');
+                writer.write(LogBuffer.levelName(entry.level));
+                writer.write(' ');
+                writer.write(entry.message);
+                writer.write('\n');
+            }
+
+            // --- Audit history, one keyset page at a time ---
+            writer.write("\n=== AUDIT LOG ===\n");
+            writer.write("id\ttimestamp\tphotoId\taction\tdetails\n");
+            long lastId = 0;
+            List<AuditLog> page;
+            do {
+                page = auditLogDao.getLogsAfter(lastId, PAGE_SIZE);
+                for (AuditLog log : page) {
+                    writer.write(Long.toString(log.getId()));
+                    writer.write('\t');
+                    writer.write(timeFormat.format(new Date(log.getTimestamp())));
+                    writer.write('\t');
+                    writer.write(Long.toString(log.getPhotoId()));
+                    writer.write('\t');
+                    writer.write(String.valueOf(log.getAction()));
+                    writer.write('\t');
+                    writer.write(sanitize(log.getDetails()));
+                    writer.write('\n');
+                    lastId = log.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+
+        Log.d(TAG, "Exported logs to " + file.getName() + " (" + file.length() + " bytes)");
+        return file;
+    }
+
+    // Keeps each audit row on one tab-separated line
+    private static String sanitize(String details) {
+        if (details == null) return "";
+        return details.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static void deleteOldExports(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (!f.delete()) {
+                Log.w(TAG, "Could not delete old export: " + f.getName());
+            }
+        }
+    }
+}
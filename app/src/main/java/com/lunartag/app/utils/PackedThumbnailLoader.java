@@ -0,0 +1,132 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+
+/**
+ * Glide loader for tiles in the ThumbnailPack. The fetcher hands Glide a view of the mapped
+ * pack, so loading a tile neither opens a file nor copies its bytes.
+ * Registered in LunarTagGlideModule.
+ */
+public class PackedThumbnailLoader implements ModelLoader<PackedThumbnailLoader.Tile, ByteBuffer> {
+
+    /**
+     * Glide model for the packed tile of one photo.
+     */
+    public static final class Tile {
+        final long photoId;
+
+        public Tile(long photoId) {
+            this.photoId = photoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tile && ((Tile) o).photoId == photoId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(photoId);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "packed-thumbnail:" + photoId;
+        }
+    }
+
+    private final ThumbnailPack pack;
+
+    PackedThumbnailLoader(ThumbnailPack pack) {
+        this.pack = pack;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull Tile tile, int width, int height, @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(tile), new Fetcher(pack, tile.photoId));
+    }
+
+    @Override
+    public boolean handles(@NonNull Tile tile) {
+        return true;
+    }
+
+    private static class Fetcher implements DataFetcher<ByteBuffer> {
+        private final ThumbnailPack pack;
+        private final long photoId;
+
+        Fetcher(ThumbnailPack pack, long photoId) {
+            this.pack = pack;
+            this.photoId = photoId;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            ByteBuffer data = pack.read(photoId);
+            if (data != null) {
+                callback.onDataReady(data);
+            } else {
+                // Not packed yet: the request falls back to its error() chain
+                callback.onLoadFailed(new FileNotFoundException("No packed thumbnail for photo " + photoId));
+            }
+        }
+
+        @Override
+        public void cleanup() {
+            // The mapping is shared and stays open
+        }
+
+        @Override
+        public void cancel() {
+            // A mapped read is too short to be worth interrupting
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<Tile, ByteBuffer> {
+        private final Context context;
+
+        public Factory(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<Tile, ByteBuffer> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PackedThumbnailLoader(ThumbnailPack.get(context));
+        }
+
+        @Override
+        public void teardown() {
+            // Nothing to release
+        }
+    }
+}
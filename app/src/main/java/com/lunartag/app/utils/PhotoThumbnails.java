@@ -0,0 +1,200 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.Log;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.lunartag.app.model.Photo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Small JPEG thumbnails for grids and lists, kept in files/thumbnails/.
+ * New photos get theirs at capture time from the bitmap that was just watermarked, so no
+ * full-resolution JPEG is ever decoded just to draw a 120dp tile. Older photos are filled in
+ * by ThumbnailBackfillWorker.
+ * UPDATED: Grids load the ThumbnailPack tile first; the files are its source and fallback.
+ * UPDATED: One shared tile request (RGB_565, tile-sized) so list preloading hits the memory cache.
+ */
+public final class PhotoThumbnails {
+
+    private static final String TAG = "PhotoThumbnails";
+    private static final String DIR = "thumbnails";
+
+    public static final int SIZE = 320; // Short side in pixels
+    private static final int QUALITY = 80;
+
+    private PhotoThumbnails() {}
+
+    /**
+     * Writes a thumbnail of an already decoded photo.
+     * @return Absolute path of the thumbnail, or null on failure.
+     */
+    @Nullable
+    public static String save(Context context, Bitmap source, String name) {
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.exists() && !dir.mkdirs()) return null;
+
+        Bitmap thumb = scale(source);
+        File file = new File(dir, name + ".jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            thumb.compress(Bitmap.CompressFormat.JPEG, QUALITY, out);
+            return file.getAbsolutePath();
+        } catch (IOException e) {
+            Log.e(TAG, "Thumbnail write failed: " + e.getMessage());
+            return null;
+        } finally {
+            if (thumb != source) thumb.recycle();
+        }
+    }
+
+    /**
+     * Creates a thumbnail from a saved photo (file path or content URI). Decodes with a sample
+     * size so the full-resolution image is never held in memory.
+     * @return Absolute path of the thumbnail, or null if the photo cannot be read.
+     */
+    @Nullable
+    public static String createFromFile(Context context, String filePath, String name) {
+        Bitmap sampled = decodeSampled(context, filePath, SIZE);
+        if (sampled == null) return null;
+        String path = save(context, sampled, name);
+        sampled.recycle();
+        return path;
+    }
+
+    /**
+     * Adds a photo to the ThumbnailPack, from its thumbnail file if it has one, else from the
+     * original. Used by the backfill; new photos are packed at capture time.
+     */
+    public static boolean packFromFiles(Context context, Photo photo) {
+        String thumbnailPath = photo.getThumbnailPath();
+        Bitmap source = null;
+        if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+            source = decodeSampled(context, thumbnailPath, ThumbnailPack.TILE_SIZE);
+        }
+        if (source == null) {
+            source = decodeSampled(context, photo.getFilePath(), ThumbnailPack.TILE_SIZE);
+        }
+        if (source == null) return false;
+        byte[] tile = ThumbnailPack.encodeTile(source);
+        source.recycle();
+        return ThumbnailPack.get(context).put(photo.getId(), tile);
+    }
+
+    /**
+     * Decodes an image with the largest power-of-two sample size that keeps its short side
+     * at least minShortSide.
+     */
+    @Nullable
+    private static Bitmap decodeSampled(Context context, String filePath, int minShortSide) {
+        if (filePath == null) return null;
+        Uri uri = toUri(filePath);
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+                if (in == null) return null;
+                BitmapFactory.decodeStream(in, null, options);
+            }
+            int shortSide = Math.min(options.outWidth, options.outHeight);
+            if (shortSide <= 0) return null;
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = 1;
+            while (shortSide / (options.inSampleSize * 2) >= minShortSide) {
+                options.inSampleSize *= 2;
+            }
+            try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+                return in != null ? BitmapFactory.decodeStream(in, null, options) : null;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Thumbnail decode failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads a photo tile: the packed tile if there is one, else the thumbnail file, else
+     * (or if those have gone missing) the original, decoded down to the tile size.
+     */
+    public static void loadInto(Context context, Photo photo, ImageView target) {
+        tileRequest(Glide.with(context), photo).into(target);
+    }
+
+    /**
+     * The grid tile request for a photo. Shared with the list preloaders, which only hit the
+     * memory cache if they build exactly the same request.
+     * Tiles are opaque JPEGs, so they decode as RGB_565 at half the memory of ARGB_8888.
+     * Only the packed tile and thumbnail file are local caches already; for the original only
+     * the downscaled result goes to the disk cache, never the full-size source.
+     * UPDATED: Photos flagged as missing by the reconciliation never fall back to the original.
+     */
+    public static RequestBuilder<Drawable> tileRequest(RequestManager glide, Photo photo) {
+        String original = photo.isFileMissing() ? null : photo.getFilePath();
+        RequestBuilder<Drawable> fallback = glide
+                .load(original != null ? toUri(original) : null)
+                .apply(tileOptions(DiskCacheStrategy.RESOURCE));
+
+        String thumbnailPath = photo.getThumbnailPath();
+        if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+            fallback = glide
+                    .load(new File(thumbnailPath))
+                    .apply(tileOptions(DiskCacheStrategy.NONE)) // The file already is the cache
+                    .error(fallback);
+        }
+
+        return glide
+                .load(new PackedThumbnailLoader.Tile(photo.getId()))
+                .apply(tileOptions(DiskCacheStrategy.NONE)) // The pack already is the cache
+                .error(fallback);
+    }
+
+    private static RequestOptions tileOptions(DiskCacheStrategy diskCacheStrategy) {
+        return new RequestOptions()
+                .override(ThumbnailPack.TILE_SIZE) // Render small for grid performance
+                .centerCrop()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .diskCacheStrategy(diskCacheStrategy);
+    }
+
+    /**
+     * Removes the thumbnail file and packed tile of a deleted photo. Not called on the main thread.
+     * UPDATED: Also removes its share copy.
+     */
+    public static void delete(Context context, Photo photo) {
+        String thumbnailPath = photo.getThumbnailPath();
+        if (thumbnailPath != null && !thumbnailPath.isEmpty()) {
+            new File(thumbnailPath).delete();
+        }
+        ShareVariants.delete(photo.getSharePath());
+        ThumbnailPack.get(context).remove(photo.getId());
+    }
+
+    private static Bitmap scale(Bitmap source) {
+        int shortSide = Math.min(source.getWidth(), source.getHeight());
+        if (shortSide <= SIZE) return source;
+        float ratio = (float) SIZE / shortSide;
+        return Bitmap.createScaledBitmap(source,
+                Math.round(source.getWidth() * ratio), Math.round(source.getHeight() * ratio), true);
+    }
+
+    private static Uri toUri(String path) {
+        return path.startsWith("content://") ? Uri.parse(path) : Uri.fromFile(new File(path));
+    }
+}
@@ -0,0 +1,88 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Downscaled copies of photos for sharing, kept in files/share/ and linked from Photo.sharePath.
+ * Made at capture time from the watermarked bitmap that is already in memory, right after the
+ * archive file, so the only extra work is one scale and one small JPEG encode. Sharing from the
+ * viewer sends this copy instead of the full-size original.
+ */
+public final class ShareVariants {
+
+    private static final String TAG = "ShareVariants";
+    private static final String DIR = "share";
+
+    public static final int MAX_SIDE = 1600; // Long side in pixels
+    private static final int QUALITY = 80;
+
+    private ShareVariants() {}
+
+    /**
+     * True if the photo is worth a separate share copy: the share-optimised profile is already
+     * small, and so is anything not much larger than the variant.
+     */
+    public static boolean isNeeded(Bitmap source, EncodingProfile profile) {
+        return profile != EncodingProfile.SHARE
+                && Math.max(source.getWidth(), source.getHeight()) > MAX_SIDE * 5 / 4;
+    }
+
+    /**
+     * Writes the share copy of a just-captured photo as JPEG, with the same EXIF as the archive.
+     * @return Absolute path of the copy, or null on failure.
+     */
+    @Nullable
+    public static String save(Context context, Bitmap source, String name, ExifWriter exif) {
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.exists() && !dir.mkdirs()) return null;
+
+        Bitmap scaled = scale(source);
+        File file = new File(dir, name + ".jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            exif.compress(scaled, QUALITY, out);
+            return file.getAbsolutePath();
+        } catch (IOException e) {
+            Log.e(TAG, "Share copy write failed: " + e.getMessage());
+            file.delete();
+            return null;
+        } finally {
+            if (scaled != source) scaled.recycle();
+        }
+    }
+
+    /**
+     * The file to share for a photo: its share copy if that still exists, else null.
+     */
+    @Nullable
+    public static File existing(@Nullable String sharePath) {
+        if (sharePath == null || sharePath.isEmpty()) return null;
+        File file = new File(sharePath);
+        return file.exists() ? file : null;
+    }
+
+    /**
+     * Removes a share copy. Not called on the main thread.
+     */
+    public static void delete(@Nullable String sharePath) {
+        if (sharePath != null && !sharePath.isEmpty()) {
+            new File(sharePath).delete();
+        }
+    }
+
+    private static Bitmap scale(Bitmap source) {
+        int longSide = Math.max(source.getWidth(), source.getHeight());
+        if (longSide <= MAX_SIDE) return source;
+        float ratio = (float) MAX_SIDE / longSide;
+        return Bitmap.createScaledBitmap(source,
+                Math.round(source.getWidth() * ratio), Math.round(source.getHeight() * ratio), true);
+    }
+}
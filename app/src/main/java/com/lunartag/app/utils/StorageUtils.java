@@ -9,6 +9,7 @@ import android.content.UriPermission;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
+import android.provider.DocumentsContract;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -16,11 +17,15 @@ import androidx.annotation.Nullable;
 import androidx.documentfile.provider.DocumentFile;
 import androidx.fragment.app.Fragment;
 
+import java.io.File;
 import java.io.OutputStream;
 
 /**
  * A dedicated utility to handle Storage Access Framework (SAF).
  * Allows users to select SD Cards or Custom Folders and saves directly to them.
+ * UPDATED: The folder's document URI is resolved once and cached; photos are created with
+ * DocumentsContract.createDocument against it, without a DocumentFile or canWrite() query per
+ * photo. A failed create drops the cache, so a revoked folder is resolved (and checked) again.
  */
 public class StorageUtils {
 
@@ -31,6 +36,10 @@ public class StorageUtils {
     // Request Code to identify when the User returns from the File Picker
     public static final int REQUEST_CODE_PICK_FOLDER = 999;
 
+    // Document URI of the custom folder (the picked tree's root), which photos are created in.
+    // Resolved on first save; cleared when the folder changes or a create fails.
+    private static volatile Uri cachedFolderUri;
+
     /**
      * Step 1: Launch the System File Picker (Folder Browser).
      * Call this when the Folder Icon is clicked.
@@ -70,6 +79,7 @@ public class StorageUtils {
         // 2. Save the URI string to local settings so we remember it tomorrow
         SharedPreferences prefs = context.getSharedPreferences(PREFS_STORAGE, Context.MODE_PRIVATE);
         prefs.edit().putString(KEY_CUSTOM_FOLDER_URI, treeUri.toString()).apply();
+        cachedFolderUri = null;
 
         Toast.makeText(context, "Save Location Updated!", Toast.LENGTH_SHORT).show();
     }
@@ -84,48 +94,116 @@ public class StorageUtils {
     }
 
     /**
-     * Step 3: The Heavy Lifting. Save the actual photo into that specific folder.
-     * Returns the absolute URI string on success, or null on failure.
+     * Returns the user's custom folder if one is selected and still writable, else null.
      */
     @Nullable
-    public static String saveImageToCustomFolder(Context context, Bitmap bitmap, String filename) {
+    public static DocumentFile getCustomFolder(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_STORAGE, Context.MODE_PRIVATE);
         String uriString = prefs.getString(KEY_CUSTOM_FOLDER_URI, null);
+        if (uriString == null || uriString.isEmpty()) return null;
+        DocumentFile dir = DocumentFile.fromTreeUri(context, Uri.parse(uriString));
+        return dir != null && dir.canWrite() ? dir : null;
+    }
 
-        if (uriString == null) {
-            Log.e(TAG, "No custom folder selected.");
-            return null;
-        }
-
-        Uri treeUri = Uri.parse(uriString);
-        DocumentFile pickedDir = DocumentFile.fromTreeUri(context, treeUri);
+    /**
+     * Step 3: The Heavy Lifting. Save the actual photo into that specific folder.
+     * Returns the absolute URI string on success, or null on failure.
+     * UPDATED: The JPEG is written through the given ExifWriter (embedded thumbnail).
+     * UPDATED: Created directly in the cached folder; the folder is only resolved and checked
+     * again after a create fails (permission revoked, SD card removed).
+     * UPDATED: Format, quality and file type come from the given EncodingProfile.
+     */
+    @Nullable
+    public static String saveImageToCustomFolder(Context context, Bitmap bitmap, String filename,
+                                                 ExifWriter exif, EncodingProfile profile) {
+        ContentResolver resolver = context.getContentResolver();
 
-        if (pickedDir == null || !pickedDir.canWrite()) {
-            Log.e(TAG, "Cannot write to the selected folder. Permission lost or SD Card removed.");
-            return null;
+        Uri newFile = createDocument(context, resolver, filename, profile);
+        if (newFile == null) {
+            // The cached folder may be stale; resolve it once more and retry
+            cachedFolderUri = null;
+            newFile = createDocument(context, resolver, filename, profile);
         }
-
-        // Create the file (MIME type, Display Name)
-        DocumentFile newFile = pickedDir.createFile("image/jpeg", filename + ".jpg");
-        
         if (newFile == null) {
             Log.e(TAG, "Failed to create file inside custom folder.");
             return null;
         }
 
         // Write the Bitmap data
-        try (OutputStream out = context.getContentResolver().openOutputStream(newFile.getUri())) {
+        try (OutputStream out = resolver.openOutputStream(newFile)) {
             if (out == null) return null;
             
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 100, out);
+            exif.compress(bitmap, profile, out);
             out.flush();
             
             // Return the usable URI
-            return newFile.getUri().toString();
+            return newFile.toString();
             
         } catch (Exception e) {
             Log.e(TAG, "Error writing bitmap to custom folder", e);
             return null;
         }
     }
-}
\ No newline at end of file
+
+    @Nullable
+    private static Uri createDocument(Context context, ContentResolver resolver, String filename,
+                                      EncodingProfile profile) {
+        Uri folder = resolveFolder(context);
+        if (folder == null) return null;
+        try {
+            return DocumentsContract.createDocument(resolver, folder, profile.getMimeType(),
+                    filename + profile.getExtension());
+        } catch (Exception e) {
+            // FileNotFoundException or SecurityException once the folder is gone or revoked
+            Log.w(TAG, "createDocument failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The cached custom folder, resolved from the settings on first use. Only then is it checked
+     * for write access, which costs a provider query.
+     */
+    @Nullable
+    private static Uri resolveFolder(Context context) {
+        Uri folder = cachedFolderUri;
+        if (folder != null) return folder;
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_STORAGE, Context.MODE_PRIVATE);
+        String uriString = prefs.getString(KEY_CUSTOM_FOLDER_URI, null);
+        if (uriString == null) {
+            Log.e(TAG, "No custom folder selected.");
+            return null;
+        }
+
+        Uri treeUri = Uri.parse(uriString);
+        DocumentFile pickedDir = DocumentFile.fromTreeUri(context, treeUri);
+        if (pickedDir == null || !pickedDir.canWrite()) {
+            Log.e(TAG, "Cannot write to the selected folder. Permission lost or SD Card removed.");
+            return null;
+        }
+
+        // The tree root's document URI, i.e. buildDocumentUriUsingTree(tree, getTreeDocumentId(tree))
+        folder = pickedDir.getUri();
+        cachedFolderUri = folder;
+        return folder;
+    }
+
+    /**
+     * Returns the size in bytes of a saved photo, whether it is a plain file path or a
+     * SAF content URI. Returns 0 if the size cannot be determined.
+     */
+    public static long getFileSize(Context context, String path) {
+        if (path == null) return 0;
+        try {
+            if (path.startsWith("content://")) {
+                DocumentFile doc = DocumentFile.fromSingleUri(context, Uri.parse(path));
+                return doc != null ? doc.length() : 0;
+            }
+            return new File(path).length();
+        } catch (Exception e) {
+            Log.e(TAG, "Cannot read file size: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.lunartag.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.media.ThumbnailUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.lunartag.app.workers.ThumbnailBackfillWorker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * All grid tiles in one file (files/thumbnails.pack), read through a single memory mapping.
+ * Binding a screen of tiles then costs no file opens, only page-cache reads of one region.
+ *
+ * Layout: fixed-size slots, appended in capture order. Slot 0 is the file header; every other
+ * slot starts with (photoId, length, CRC32) followed by the JPEG tile. A photoId of 0 marks a
+ * free slot. The photoId -> slot index lives in memory and is rebuilt from the slot headers
+ * when the pack is opened, so there is no separate index file to keep in sync.
+ *
+ * Deletes only free their slot; compactIfNeeded() (run by the maintenance worker) rewrites the
+ * pack without them. The pack is a cache: a bad header resets it and the backfill worker fills
+ * it again from the thumbnail files or originals; a tile failing its CRC is dropped and packed
+ * again the same way.
+ */
+public final class ThumbnailPack {
+
+    private static final String TAG = "ThumbnailPack";
+    private static final String FILE_NAME = "thumbnails.pack";
+    private static final int MAGIC = 0x4C54504B; // "LTPK"
+    private static final int VERSION = 1;
+
+    public static final int TILE_SIZE = 256; // Square, center-cropped
+    private static final int SLOT_SIZE = 12 * 1024; // Three 4 KB pages
+    private static final int SLOT_HEADER = 16; // photoId (8), length (4), CRC32 (4)
+    private static final int MAX_DATA = SLOT_SIZE - SLOT_HEADER;
+    private static final int MAX_SLOTS = Integer.MAX_VALUE / SLOT_SIZE; // One mapping is at most 2 GB
+    private static final int[] QUALITY_STEPS = {80, 70, 60, 50};
+
+    private static final int COMPACT_MIN_FREE_SLOTS = 64;
+
+    private static volatile ThumbnailPack instance;
+
+    private final Context appContext;
+    private final File file;
+    private final Map<Long, Integer> slotsByPhotoId = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int mappedSlots;
+    private int slotCount; // Including the header slot
+    private int freeSlots;
+    private boolean openFailed = false;
+
+    private ThumbnailPack(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.file = new File(appContext.getFilesDir(), FILE_NAME);
+    }
+
+    public static ThumbnailPack get(Context context) {
+        if (instance == null) {
+            synchronized (ThumbnailPack.class) {
+                if (instance == null) {
+                    instance = new ThumbnailPack(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Deletes the pack and schedules its rebuild. Only for process start, before first use.
+     */
+    public static void discard(Context context) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (file.delete()) {
+            ThumbnailBackfillWorker.requestRebuild(context);
+        }
+    }
+
+    /**
+     * Encodes a grid tile: a center-cropped TILE_SIZE square, at the best quality that fits a slot.
+     * @return The JPEG bytes, or null if even the lowest quality does not fit.
+     */
+    @Nullable
+    public static byte[] encodeTile(Bitmap source) {
+        Bitmap tile = ThumbnailUtils.extractThumbnail(source, TILE_SIZE, TILE_SIZE);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_DATA);
+            for (int quality : QUALITY_STEPS) {
+                out.reset();
+                tile.compress(Bitmap.CompressFormat.JPEG, quality, out);
+                if (out.size() <= MAX_DATA) return out.toByteArray();
+            }
+            return null;
+        } finally {
+            if (tile != source) tile.recycle();
+        }
+    }
+
+    /**
+     * Stores the tile of a photo, replacing any previous one. Not called on the main thread.
+     */
+    public synchronized boolean put(long photoId, @Nullable byte[] jpeg) {
+        if (photoId <= 0 || jpeg == null || jpeg.length > MAX_DATA || !ensureOpen()) return false;
+        if (slotCount >= MAX_SLOTS) return false;
+        try {
+            CRC32 crc = new CRC32();
+            crc.update(jpeg);
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE); // Zero padded to the full slot
+            slot.putLong(photoId).putInt(jpeg.length).putInt((int) crc.getValue()).put(jpeg);
+            slot.clear();
+            writeFully(channel, slot, (long) slotCount * SLOT_SIZE);
+
+            Integer previous = slotsByPhotoId.put(photoId, slotCount);
+            slotCount++;
+            if (previous != null) freeSlot(previous);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Pack write failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized void remove(long photoId) {
+        if (!ensureOpen()) return;
+        Integer slot = slotsByPhotoId.remove(photoId);
+        if (slot == null) return;
+        try {
+            freeSlot(slot);
+        } catch (IOException e) {
+            Log.e(TAG, "Pack delete failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized boolean contains(long photoId) {
+        return ensureOpen() && slotsByPhotoId.containsKey(photoId);
+    }
+
+    /**
+     * The tile of a photo as a read-only view into the mapping, or null if the pack has none
+     * (or it failed its checksum, which drops it and queues a rebuild). Not called on the main
+     * thread.
+     */
+    @Nullable
+    public ByteBuffer read(long photoId) {
+        ByteBuffer data;
+        int expectedCrc;
+        synchronized (this) {
+            if (!ensureOpen()) return null;
+            Integer slot = slotsByPhotoId.get(photoId);
+            if (slot == null) return null;
+            try {
+                if (slot >= mappedSlots) remap(); // Appended since the last mapping
+            } catch (IOException e) {
+                Log.e(TAG, "Pack remap failed: " + e.getMessage());
+                return null;
+            }
+            int position = slot * SLOT_SIZE;
+            int length = map.getInt(position + 8);
+            expectedCrc = map.getInt(position + 12);
+            if (length <= 0 || length > MAX_DATA) {
+                data = null;
+            } else {
+                ByteBuffer view = map.duplicate();
+                view.limit(position + SLOT_HEADER + length).position(position + SLOT_HEADER);
+                data = view.slice();
+            }
+        }
+
+        if (data != null) {
+            CRC32 crc = new CRC32();
+            crc.update(data.duplicate());
+            if ((int) crc.getValue() == expectedCrc) return data.asReadOnlyBuffer();
+        }
+        LogBuffer.w("Thumbnails: Dropped damaged pack tile for photo " + photoId);
+        remove(photoId);
+        // Phase 2 of the backfill packs it again from the thumbnail file or original
+        ThumbnailBackfillWorker.requestRebuild(appContext);
+        return null;
+    }
+
+    /**
+     * Rewrites the pack without its free slots, once they are at least a quarter of it.
+     * Readers holding tiles of the old mapping are unaffected; the old file is only unlinked.
+     * @return The number of slots reclaimed.
+     */
+    public synchronized int compactIfNeeded() {
+        if (!ensureOpen() || freeSlots < COMPACT_MIN_FREE_SLOTS || freeSlots * 4 < slotCount) return 0;
+
+        File temp = new File(file.getPath() + ".tmp");
+        Map<Long, Integer> compacted = new HashMap<>();
+        int next = 1;
+        try {
+            if (mappedSlots < slotCount) remap();
+            try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+                FileChannel outChannel = out.getChannel();
+                outChannel.truncate(0);
+                writeFully(outChannel, headerSlot(), 0);
+                for (int slot = 1; slot < slotCount; slot++) {
+                    long photoId = map.getLong(slot * SLOT_SIZE);
+                    Integer current = slotsByPhotoId.get(photoId);
+                    if (photoId == 0 || current == null || current != slot) continue;
+
+                    ByteBuffer source = map.duplicate();
+                    source.limit(slot * SLOT_SIZE + SLOT_SIZE).position(slot * SLOT_SIZE);
+                    writeFully(outChannel, source, (long) next * SLOT_SIZE);
+                    compacted.put(photoId, next++);
+                }
+                outChannel.force(false);
+            }
+
+            channel.close();
+            channel = null;
+            if (!temp.renameTo(file)) throw new IOException("rename failed");
+        } catch (IOException e) {
+            Log.e(TAG, "Pack compaction failed: " + e.getMessage());
+            temp.delete();
+            closeQuietly();
+            return 0;
+        }
+
+        int reclaimed = slotCount - next;
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            slotsByPhotoId.clear();
+            slotsByPhotoId.putAll(compacted);
+            slotCount = next;
+            freeSlots = 0;
+            remap();
+        } catch (IOException e) {
+            Log.e(TAG, "Pack reopen failed: " + e.getMessage());
+            closeQuietly();
+        }
+        return reclaimed;
+    }
+
+    // --- Internals (all under the instance lock) ---
+
+    /**
+     * Opens the pack on first use and indexes its slot headers.
+     */
+    private boolean ensureOpen() {
+        if (channel != null) return true;
+        if (openFailed) return false;
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            if (channel.size() == 0) {
+                writeFully(channel, headerSlot(), 0);
+            } else if (!hasValidHeader()) {
+                LogBuffer.w("Thumbnails: Pack header invalid, rebuilding.");
+                channel.truncate(0);
+                writeFully(channel, headerSlot(), 0);
+                ThumbnailBackfillWorker.requestRebuild(appContext);
+            }
+
+            // A slot cut short by a crash is dropped
+            long wholeSlots = channel.size() / SLOT_SIZE;
+            if (wholeSlots * SLOT_SIZE != channel.size()) channel.truncate(wholeSlots * SLOT_SIZE);
+            slotCount = (int) Math.min(wholeSlots, MAX_SLOTS);
+            slotsByPhotoId.clear();
+            freeSlots = 0;
+            remap();
+
+            for (int slot = 1; slot < slotCount; slot++) {
+                long photoId = map.getLong(slot * SLOT_SIZE);
+                int length = map.getInt(slot * SLOT_SIZE + 8);
+                if (photoId == 0 || length <= 0 || length > MAX_DATA) {
+                    freeSlots++;
+                    continue;
+                }
+                // Slots are in write order, so a later copy of the same photo wins
+                Integer previous = slotsByPhotoId.put(photoId, slot);
+                if (previous != null) freeSlots++;
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Pack open failed: " + e.getMessage());
+            closeQuietly();
+            openFailed = true;
+            return false;
+        }
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        if (channel.read(header, 0) < 12) return false;
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == SLOT_SIZE;
+    }
+
+    private static ByteBuffer headerSlot() {
+        ByteBuffer header = ByteBuffer.allocate(SLOT_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(SLOT_SIZE);
+        header.clear();
+        return header;
+    }
+
+    private void remap() throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) slotCount * SLOT_SIZE);
+        mappedSlots = slotCount;
+    }
+
+    private void freeSlot(int slot) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(8), (long) slot * SLOT_SIZE); // photoId = 0
+        freeSlots++;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        channel = null;
+        map = null;
+        mappedSlots = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.lunartag.app.workers;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.lunartag.app.data.DatabaseBackup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the scheduled daily database snapshot (see DatabaseBackup).
+ */
+public class DatabaseBackupWorker extends Worker {
+
+    private static final String TAG = "DatabaseBackupWorker";
+    private static final String WORK_NAME = "database_backup";
+
+    public DatabaseBackupWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily snapshot (kept if already scheduled).
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .setRequiresStorageNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DatabaseBackupWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            DatabaseBackup.createSnapshot(getApplicationContext());
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Scheduled backup failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
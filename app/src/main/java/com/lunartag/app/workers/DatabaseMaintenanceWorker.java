@@ -0,0 +1,174 @@
+package com.lunartag.app.workers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.AuditLogger;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.ThumbnailPack;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic upkeep of the Room database, run only while the device is idle and charging.
+ * 1. ANALYZE, so the query planner has statistics for the indexes.
+ * 2. Incremental vacuum: returns free pages left by deletes to the file system in small steps,
+ *    each its own short write, so the capture path never waits long for the write lock.
+ * 3. PRAGMA quick_check, a read-only consistency check (WAL readers do not block writers).
+ * 4. Compaction of the ThumbnailPack once deletes have left enough free slots.
+ * Every step is timed and the summary goes to the audit log and the live log.
+ *
+ * Incremental vacuum needs auto_vacuum=INCREMENTAL, which only takes effect on an existing file
+ * through a full VACUUM. Room runs migrations inside a transaction where VACUUM is not allowed,
+ * so the one-time conversion happens here on the first run instead.
+ */
+public class DatabaseMaintenanceWorker extends Worker {
+
+    private static final String TAG = "DbMaintenanceWorker";
+    private static final String WORK_NAME = "database_maintenance";
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    private static final int VACUUM_STEP_PAGES = 256; // ~1 MB at the default 4 KB page size
+    private static final long VACUUM_STEP_PAUSE_MS = 20; // Gap between steps for waiting writers
+    private static final int MAX_VACUUM_STEPS = 400;
+
+    public DatabaseMaintenanceWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily maintenance run (kept if already scheduled).
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DatabaseMaintenanceWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SupportSQLiteDatabase db = AppDatabase.getDatabase(getApplicationContext()).getOpenHelper().getWritableDatabase();
+        StringBuilder details = new StringBuilder("{");
+
+        try {
+            // --- 1. Planner statistics ---
+            long start = SystemClock.elapsedRealtime();
+            db.execSQL("ANALYZE");
+            appendField(details, "analyzeMs", SystemClock.elapsedRealtime() - start);
+            if (isStopped()) return finish(details, "stopped");
+
+            // --- 2. Free space ---
+            start = SystemClock.elapsedRealtime();
+            if (longPragma(db, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+                if (!convertToIncrementalVacuum(db)) {
+                    appendField(details, "vacuumSkipped", "\"low storage\"");
+                }
+                appendField(details, "convertMs", SystemClock.elapsedRealtime() - start);
+            } else {
+                long freeBefore = longPragma(db, "PRAGMA freelist_count");
+                int steps = 0;
+                while (!isStopped() && steps < MAX_VACUUM_STEPS && longPragma(db, "PRAGMA freelist_count") > 0) {
+                    drain(db, "PRAGMA incremental_vacuum(" + VACUUM_STEP_PAGES + ")");
+                    steps++;
+                    SystemClock.sleep(VACUUM_STEP_PAUSE_MS);
+                }
+                appendField(details, "pagesFreed", freeBefore - longPragma(db, "PRAGMA freelist_count"));
+                appendField(details, "vacuumMs", SystemClock.elapsedRealtime() - start);
+            }
+            if (isStopped()) return finish(details, "stopped");
+
+            // --- 3. Consistency ---
+            start = SystemClock.elapsedRealtime();
+            String check;
+            try (Cursor cursor = db.query("PRAGMA quick_check")) {
+                check = cursor.moveToFirst() ? cursor.getString(0) : "no result";
+            }
+            appendField(details, "quickCheckMs", SystemClock.elapsedRealtime() - start);
+            appendField(details, "quickCheck", "\"" + check.replace("\"", "'") + "\"");
+
+            appendField(details, "pages", longPragma(db, "PRAGMA page_count"));
+
+            // --- 4. Thumbnail pack ---
+            start = SystemClock.elapsedRealtime();
+            int slotsFreed = ThumbnailPack.get(getApplicationContext()).compactIfNeeded();
+            if (slotsFreed > 0) {
+                appendField(details, "packSlotsFreed", slotsFreed);
+                appendField(details, "packCompactMs", SystemClock.elapsedRealtime() - start);
+            }
+            return finish(details, "ok".equals(check) ? "ok" : "corrupt");
+
+        } catch (Exception e) {
+            Log.e(TAG, "Database maintenance failed: " + e.getMessage());
+            finish(details, "error");
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Switches the file to auto_vacuum=INCREMENTAL with a one-time full VACUUM. VACUUM rewrites
+     * the whole file and needs about as much free space again, so it is skipped when storage is low.
+     */
+    private boolean convertToIncrementalVacuum(SupportSQLiteDatabase db) {
+        File file = getApplicationContext().getDatabasePath(AppDatabase.DATABASE_NAME);
+        if (file.getParentFile() != null && file.getParentFile().getUsableSpace() < file.length() * 2) {
+            return false;
+        }
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM");
+        LogBuffer.i("Database: Enabled incremental vacuum.");
+        return true;
+    }
+
+    private Result finish(StringBuilder details, String outcome) {
+        appendField(details, "result", "\"" + outcome + "\"");
+        details.append('}');
+        AuditLogger.getInstance(getApplicationContext()).log(0, AuditLogger.ACTION_DB_MAINTENANCE, details.toString());
+        if ("corrupt".equals(outcome)) {
+            LogBuffer.e("Database: Integrity check failed " + details);
+        } else {
+            LogBuffer.i("Database: Maintenance " + outcome + " " + details);
+        }
+        return Result.success();
+    }
+
+    private static void appendField(StringBuilder json, String name, Object value) {
+        if (json.length() > 1) json.append(',');
+        json.append('"').append(name).append("\":").append(value);
+    }
+
+    private static long longPragma(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor cursor = db.query(pragma)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Runs a statement through a cursor so SQLite steps it to completion.
+     */
+    private static void drain(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            while (cursor.moveToNext()) {
+                // Nothing to read
+            }
+        }
+    }
+}
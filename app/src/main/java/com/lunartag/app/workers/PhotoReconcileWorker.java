@@ -0,0 +1,405 @@
+package com.lunartag.app.workers;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.PhotoThumbnails;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the photos table in step with the files it points at, so screens can trust the
+ * 'fileMissing' flag instead of touching storage while binding.
+ * Walks the table in keyset batches and picks up where the previous run stopped, at most
+ * MAX_ROWS_PER_RUN rows per run:
+ * - plain file paths are checked with one stat each;
+ * - MediaStore rows are looked up per collection in one query per batch (_id IN ...);
+ * - SAF documents are matched against one child listing per folder, with a single-document
+ *   query only for those not found there.
+ * Rows whose file is gone are marked missing, and unmarked again if it comes back (an SD card
+ * put back in). Rows never get deleted here; the user deletes them as usual. Files changed by
+ * another app since the last full pass lose their thumbnails, which the backfill then remakes,
+ * and their share copies, so sharing sends the changed original.
+ * MediaStore changes are detected by generation on Android 11+ and by modified time otherwise.
+ * FIXED: MediaStore rows the batch query leaves out are probed on their own URI, and are not
+ * marked missing when scoped storage may simply be hiding them (items from before a reinstall
+ * or restore, without permission to read all images).
+ */
+public class PhotoReconcileWorker extends Worker {
+
+    private static final String TAG = "PhotoReconcile";
+    private static final String WORK_NAME = "photo_reconcile";
+
+    private static final String PREFS_RECONCILE = "LunarTagReconcilePrefs";
+    private static final String KEY_RESUME_AFTER_ID = "resume_after_id";
+    private static final String KEY_PASS_STARTED_MS = "pass_started_ms";
+    private static final String KEY_PASS_STARTED_GENERATION = "pass_started_generation";
+    private static final String KEY_LAST_PASS_MS = "last_pass_ms";
+    private static final String KEY_LAST_PASS_GENERATION = "last_pass_generation";
+    private static final String KEY_MEDIA_VERSION = "media_version";
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_ROWS_PER_RUN = 4000;
+    // Our own write finishes just before the row is inserted; later changes are someone else's
+    private static final long WRITE_SLACK_MS = 60_000;
+
+    /** State of one saved file. */
+    private static final int PRESENT = 0;
+    private static final int MISSING = 1;
+    private static final int CHANGED = 2;
+    private static final int UNKNOWN = 3; // Cannot tell; the flag is left as it is
+
+    private final ContentResolver resolver;
+    // Tree URI -> document id -> last modified, for the SAF folders listed in this run
+    private final Map<String, Map<String, Long>> folderListings = new HashMap<>();
+
+    private long lastPassMs;
+    private long lastPassGeneration;
+    private Boolean canSeeAllMedia; // Lazily: whether MediaStore shows us items we do not own
+    private long installedAt = -1;
+
+    public PhotoReconcileWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+        resolver = context.getContentResolver();
+    }
+
+    /**
+     * Schedules the daily reconciliation (kept if already scheduled).
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(PhotoReconcileWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        PhotoDao dao = AppDatabase.getDatabase(context).photoDao();
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_RECONCILE, Context.MODE_PRIVATE);
+
+        lastPassMs = prefs.getLong(KEY_LAST_PASS_MS, 0);
+        lastPassGeneration = prefs.getLong(KEY_LAST_PASS_GENERATION, 0);
+        long generation = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            // Generations restart when MediaStore is rebuilt; the version tells
+            String version = MediaStore.getVersion(context);
+            if (!version.equals(prefs.getString(KEY_MEDIA_VERSION, null))) {
+                lastPassGeneration = 0;
+                prefs.edit().putString(KEY_MEDIA_VERSION, version).apply();
+            }
+            generation = MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL_PRIMARY);
+        }
+
+        long afterId = prefs.getLong(KEY_RESUME_AFTER_ID, 0);
+        if (afterId == 0) {
+            // A pass may span several runs; changes are judged against the start of the pass
+            prefs.edit()
+                    .putLong(KEY_PASS_STARTED_MS, System.currentTimeMillis())
+                    .putLong(KEY_PASS_STARTED_GENERATION, generation)
+                    .apply();
+        }
+
+        int checked = 0;
+        int missing = 0;
+        int found = 0;
+        int changed = 0;
+        boolean passDone = false;
+        try {
+            while (!isStopped() && checked < MAX_ROWS_PER_RUN) {
+                List<Photo> batch = dao.getPhotosAfter(afterId, BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    passDone = true;
+                    break;
+                }
+                int[] states = checkBatch(batch);
+
+                List<Long> nowMissing = new ArrayList<>();
+                List<Long> foundAgain = new ArrayList<>();
+                List<Long> changedIds = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    Photo photo = batch.get(i);
+                    if (states[i] == UNKNOWN) continue;
+                    boolean isMissing = states[i] == MISSING;
+                    if (isMissing && !photo.isFileMissing()) nowMissing.add(photo.getId());
+                    if (!isMissing && photo.isFileMissing()) foundAgain.add(photo.getId());
+                    if (states[i] == CHANGED) {
+                        PhotoThumbnails.delete(context, photo);
+                        changedIds.add(photo.getId());
+                    }
+                }
+                if (!nowMissing.isEmpty()) dao.setFileMissing(nowMissing, true);
+                if (!foundAgain.isEmpty()) dao.setFileMissing(foundAgain, false);
+                if (!changedIds.isEmpty()) dao.clearDerivedPaths(changedIds);
+                missing += nowMissing.size();
+                found += foundAgain.size();
+                changed += changedIds.size();
+
+                checked += batch.size();
+                afterId = batch.get(batch.size() - 1).getId();
+                prefs.edit().putLong(KEY_RESUME_AFTER_ID, afterId).apply();
+            }
+
+            if (passDone) {
+                // End of the table: the next run starts a new pass
+                prefs.edit()
+                        .putLong(KEY_RESUME_AFTER_ID, 0)
+                        .putLong(KEY_LAST_PASS_MS, prefs.getLong(KEY_PASS_STARTED_MS, 0))
+                        .putLong(KEY_LAST_PASS_GENERATION, prefs.getLong(KEY_PASS_STARTED_GENERATION, 0))
+                        .apply();
+            }
+
+            if (changed > 0) {
+                ThumbnailBackfillWorker.requestRebuild(context);
+            }
+            LogBuffer.i("Reconcile: " + checked + " photos checked, " + missing + " missing, "
+                    + found + " found again, " + changed + " changed.");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Reconciliation failed", e);
+            LogBuffer.e("Reconcile: Failed - " + e.getMessage());
+            return Result.retry();
+        }
+    }
+
+    /**
+     * State of each photo's file, in batch order.
+     */
+    private int[] checkBatch(List<Photo> batch) {
+        int[] states = new int[batch.size()];
+        // Collection URI -> positions in the batch, for one MediaStore query per collection
+        Map<String, List<Integer>> mediaRows = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Photo photo = batch.get(i);
+            String path = photo.getFilePath();
+            if (path == null || path.isEmpty()) {
+                states[i] = MISSING;
+            } else if (!path.startsWith("content://")) {
+                states[i] = checkFile(photo, new File(path));
+            } else {
+                Uri uri = Uri.parse(path);
+                if (MediaStore.AUTHORITY.equals(uri.getAuthority())) {
+                    String collection = path.substring(0, path.lastIndexOf('/'));
+                    List<Integer> rows = mediaRows.get(collection);
+                    if (rows == null) {
+                        rows = new ArrayList<>();
+                        mediaRows.put(collection, rows);
+                    }
+                    rows.add(i);
+                } else {
+                    states[i] = checkDocument(photo, uri);
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : mediaRows.entrySet()) {
+            checkMedia(Uri.parse(entry.getKey()), entry.getValue(), batch, states);
+        }
+        return states;
+    }
+
+    private int checkFile(Photo photo, File file) {
+        // An unmounted volume (SD card out) reads as missing too; the flag clears once it is back
+        if (!file.exists()) return MISSING;
+        return changedSinceLastPass(photo, file.lastModified()) ? CHANGED : PRESENT;
+    }
+
+    /**
+     * MediaStore rows of one collection, with a single query for the whole batch.
+     */
+    private void checkMedia(Uri collection, List<Integer> rows, List<Photo> batch, int[] states) {
+        Map<Long, Integer> positions = new HashMap<>();
+        StringBuilder selection = new StringBuilder(MediaStore.MediaColumns._ID + " IN (");
+        String[] args = new String[rows.size()];
+        for (int j = 0; j < rows.size(); j++) {
+            int position = rows.get(j);
+            long mediaId;
+            try {
+                mediaId = Long.parseLong(Uri.parse(batch.get(position).getFilePath()).getLastPathSegment());
+            } catch (NumberFormatException e) {
+                mediaId = -1;
+            }
+            positions.put(mediaId, position);
+            states[position] = MISSING; // Until the query returns it
+            selection.append(j == 0 ? "?" : ",?");
+            args[j] = String.valueOf(mediaId);
+        }
+        selection.append(")");
+
+        boolean withGeneration = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+        String[] projection = withGeneration
+                ? new String[]{MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATE_MODIFIED,
+                        MediaStore.MediaColumns.GENERATION_MODIFIED}
+                : new String[]{MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATE_MODIFIED};
+
+        try (Cursor cursor = resolver.query(collection, projection, selection.toString(), args, null)) {
+            if (cursor == null) throw new IllegalStateException("No cursor");
+            while (cursor.moveToNext()) {
+                Integer position = positions.get(cursor.getLong(0));
+                if (position == null) continue;
+                Photo photo = batch.get(position);
+                long modifiedMs = cursor.getLong(1) * 1000; // DATE_MODIFIED is in seconds
+                boolean changed = withGeneration
+                        ? cursor.getLong(2) > lastPassGeneration && lastPassGeneration > 0
+                            && modifiedMs > photo.getCreatedAt() + WRITE_SLACK_MS
+                        : changedSinceLastPass(photo, modifiedMs);
+                states[position] = changed ? CHANGED : PRESENT;
+            }
+        } catch (Exception e) {
+            // Volume gone: the rows are probed one by one below
+            Log.w(TAG, "MediaStore query failed for " + collection + ": " + e.getMessage());
+        }
+
+        for (int position : rows) {
+            if (states[position] == MISSING) {
+                states[position] = probeMedia(batch.get(position));
+            }
+        }
+    }
+
+    /**
+     * A MediaStore row the batch query did not return. Scoped storage hides items we no longer
+     * own (after a reinstall, or photos from a restored backup) unless we may read all images,
+     * so their absence alone does not mean the file is gone. Tries to open the item itself, and
+     * only calls it missing if it cannot be opened and would have been visible to the query.
+     */
+    private int probeMedia(Photo photo) {
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(Uri.parse(photo.getFilePath()), "r")) {
+            if (pfd != null) return PRESENT; // Modification time unknown; not checked for changes
+        } catch (Exception e) {
+            // FileNotFoundException, or SecurityException for an item we cannot access
+        }
+        return isVisibleToQuery(photo) ? MISSING : UNKNOWN;
+    }
+
+    /**
+     * True if the photo's MediaStore item shows up in our queries whenever it exists: we can read
+     * all images, or the item was created by this install of the app and so is still ours.
+     */
+    private boolean isVisibleToQuery(Photo photo) {
+        if (canSeeAllMedia == null) {
+            String permission = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                    ? Manifest.permission.READ_MEDIA_IMAGES
+                    : Manifest.permission.READ_EXTERNAL_STORAGE;
+            canSeeAllMedia = ContextCompat.checkSelfPermission(getApplicationContext(), permission)
+                    == PackageManager.PERMISSION_GRANTED;
+        }
+        if (canSeeAllMedia) return true;
+
+        if (installedAt < 0) {
+            try {
+                Context context = getApplicationContext();
+                installedAt = context.getPackageManager()
+                        .getPackageInfo(context.getPackageName(), 0).firstInstallTime;
+            } catch (PackageManager.NameNotFoundException e) {
+                installedAt = Long.MAX_VALUE; // Cannot tell; trust nothing
+            }
+        }
+        return photo.getCreatedAt() >= installedAt;
+    }
+
+    /**
+     * A SAF document: looked up in a listing of its folder, queried on its own if not there.
+     */
+    private int checkDocument(Photo photo, Uri uri) {
+        Long modified = null;
+        try {
+            if (DocumentsContract.isDocumentUri(getApplicationContext(), uri)) {
+                Map<String, Long> listing = folderListing(uri);
+                if (listing != null) {
+                    modified = listing.get(DocumentsContract.getDocumentId(uri));
+                }
+            }
+            if (modified == null) {
+                modified = queryLastModified(uri);
+            }
+        } catch (Exception e) {
+            // Revoked permission, removed card or deleted document all read as missing
+            modified = null;
+        }
+        if (modified == null) return MISSING;
+        return changedSinceLastPass(photo, modified) ? CHANGED : PRESENT;
+    }
+
+    /**
+     * Children of the folder a document was created in (the tree root of its URI), listed once
+     * per run. Null if the folder cannot be listed.
+     */
+    @Nullable
+    private Map<String, Long> folderListing(Uri documentUri) {
+        String treeId;
+        try {
+            treeId = DocumentsContract.getTreeDocumentId(documentUri);
+        } catch (IllegalArgumentException e) {
+            return null; // Not a tree URI
+        }
+        Uri treeUri = DocumentsContract.buildTreeDocumentUri(documentUri.getAuthority(), treeId);
+        String key = treeUri.toString();
+        if (folderListings.containsKey(key)) return folderListings.get(key);
+
+        Map<String, Long> listing = null;
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, treeId);
+        try (Cursor cursor = resolver.query(children, new String[]{
+                DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+                DocumentsContract.Document.COLUMN_LAST_MODIFIED}, null, null, null)) {
+            if (cursor != null) {
+                listing = new HashMap<>(cursor.getCount() * 2);
+                while (cursor.moveToNext()) {
+                    listing.put(cursor.getString(0), cursor.isNull(1) ? 0L : cursor.getLong(1));
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot list " + treeUri + ": " + e.getMessage());
+        }
+        folderListings.put(key, listing);
+        return listing;
+    }
+
+    @Nullable
+    private Long queryLastModified(Uri uri) {
+        try (Cursor cursor = resolver.query(uri,
+                new String[]{DocumentsContract.Document.COLUMN_LAST_MODIFIED}, null, null, null)) {
+            if (cursor == null || !cursor.moveToFirst()) return null;
+            return cursor.isNull(0) ? 0L : cursor.getLong(0);
+        }
+    }
+
+    private boolean changedSinceLastPass(Photo photo, long modifiedMs) {
+        return lastPassMs > 0 && modifiedMs > lastPassMs && modifiedMs > photo.getCreatedAt() + WRITE_SLACK_MS;
+    }
+}
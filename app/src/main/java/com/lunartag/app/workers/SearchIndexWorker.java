@@ -0,0 +1,134 @@
+package com.lunartag.app.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.GeocodingUtils;
+import com.lunartag.app.utils.LogBuffer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background backfill for photo search.
+ * Phase 1 adds photos taken before the search index existed to 'photos_fts', in keyset batches
+ * so each write transaction stays short. Phase 2 resolves addresses for old photos that only
+ * have coordinates, a few per run because reverse geocoding hits the network.
+ * New photos never need this: the triggers on 'photos' index them as they are saved.
+ * FIXED: Phase 1 remembers where it got to and that it finished, so later runs go straight to
+ * phase 2. While addresses remain, each run chains the next one after a short pause instead of
+ * asking for a retry, whose backoff grew with every batch.
+ */
+public class SearchIndexWorker extends Worker {
+
+    private static final String TAG = "SearchIndexWorker";
+    private static final String WORK_NAME = "search_index_backfill";
+
+    private static final String PREFS_SEARCH = "LunarTagSearchPrefs";
+    private static final String KEY_BACKFILL_DONE = "search_backfill_done_v1";
+    private static final String KEY_INDEX_DONE = "search_index_done_v1";
+    private static final String KEY_INDEX_AFTER_ID = "search_index_after_id";
+
+    private static final int INDEX_BATCH_SIZE = 500;
+    private static final int GEOCODE_BATCH_SIZE = 25;
+    private static final long GEOCODE_PAUSE_SECONDS = 30; // Between chained runs
+
+    public SearchIndexWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Enqueues the backfill unless it has already completed on this install.
+     */
+    public static void enqueueIfNeeded(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_SEARCH, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_BACKFILL_DONE, false)) return;
+
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, buildRequest(0));
+    }
+
+    /**
+     * Queues the next run behind the current one, which must end with success for it to start.
+     */
+    private void enqueueNextRun() {
+        WorkManager.getInstance(getApplicationContext()).enqueueUniqueWork(WORK_NAME,
+                ExistingWorkPolicy.APPEND_OR_REPLACE, buildRequest(GEOCODE_PAUSE_SECONDS));
+    }
+
+    private static OneTimeWorkRequest buildRequest(long delaySeconds) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED) // Needed for phase 2 only
+                .build();
+        return new OneTimeWorkRequest.Builder(SearchIndexWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(delaySeconds, TimeUnit.SECONDS)
+                .setBackoffCriteria(BackoffPolicy.LINEAR, 1, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PhotoDao dao = AppDatabase.getDatabase(getApplicationContext()).photoDao();
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS_SEARCH, Context.MODE_PRIVATE);
+
+        try {
+            // --- Phase 1: index existing rows, once per install ---
+            if (!prefs.getBoolean(KEY_INDEX_DONE, false)) {
+                long afterId = prefs.getLong(KEY_INDEX_AFTER_ID, 0);
+                int indexedBatches = 0;
+                List<Long> ids;
+                while (!isStopped() && !(ids = dao.getPhotoIdsAfter(afterId, INDEX_BATCH_SIZE)).isEmpty()) {
+                    long lastId = ids.get(ids.size() - 1);
+                    dao.indexPhotosForSearch(afterId, lastId);
+                    afterId = lastId;
+                    indexedBatches++;
+                    prefs.edit().putLong(KEY_INDEX_AFTER_ID, afterId).apply();
+                }
+                if (isStopped()) return Result.retry();
+                prefs.edit().putBoolean(KEY_INDEX_DONE, true).remove(KEY_INDEX_AFTER_ID).apply();
+                LogBuffer.d("Search: Index backfill checked " + indexedBatches + " batch(es).");
+            }
+
+            // --- Phase 2: resolve missing addresses, a bounded number per run ---
+            List<Photo> missing = dao.getPhotosMissingAddress(GEOCODE_BATCH_SIZE);
+            for (Photo photo : missing) {
+                if (isStopped()) return Result.retry();
+                Location location = new Location("backfill");
+                location.setLatitude(photo.getLat());
+                location.setLongitude(photo.getLon());
+                String address = GeocodingUtils.getAddressWithFallback(getApplicationContext(), location);
+                // Store failures as empty so the same photo is not retried forever
+                dao.updateAddress(photo.getId(), "Address Not Found".equals(address) ? "" : address);
+            }
+            if (missing.size() == GEOCODE_BATCH_SIZE) {
+                // More left; the next batch runs after a short pause instead of hammering the geocoder
+                enqueueNextRun();
+                return Result.success();
+            }
+
+            prefs.edit().putBoolean(KEY_BACKFILL_DONE, true).apply();
+            LogBuffer.i("Search: Library backfill complete.");
+            return Result.success();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Search backfill failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.lunartag.app.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.lunartag.app.data.AppDatabase;
+import com.lunartag.app.data.PhotoDao;
+import com.lunartag.app.model.Photo;
+import com.lunartag.app.utils.LogBuffer;
+import com.lunartag.app.utils.PhotoThumbnails;
+import com.lunartag.app.utils.ThumbnailPack;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background backfill of grid thumbnails for photos taken before they were made at capture time.
+ * Phase 1 walks the photos without a thumbnail file in keyset batches; each photo is decoded with
+ * a sample size, so the full-resolution image is never in memory. Unreadable photos are marked
+ * with an empty path and the grids load the original for them as before.
+ * Phase 2 adds every photo missing from the ThumbnailPack. It runs again whenever the pack had
+ * to be reset (see requestRebuild).
+ */
+public class ThumbnailBackfillWorker extends Worker {
+
+    private static final String TAG = "ThumbnailBackfill";
+    private static final String WORK_NAME = "thumbnail_backfill";
+
+    private static final String PREFS_THUMBNAILS = "LunarTagThumbnailPrefs";
+    private static final String KEY_BACKFILL_DONE = "thumbnail_backfill_done_v2";
+
+    private static final int BATCH_SIZE = 50;
+
+    public ThumbnailBackfillWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Enqueues the backfill unless it has already completed on this install.
+     */
+    public static void enqueueIfNeeded(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_THUMBNAILS, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(KEY_BACKFILL_DONE, false)) return;
+        enqueue(context);
+    }
+
+    /**
+     * Runs the backfill again, e.g. after the ThumbnailPack was found damaged and reset.
+     */
+    public static void requestRebuild(Context context) {
+        context.getSharedPreferences(PREFS_THUMBNAILS, Context.MODE_PRIVATE)
+                .edit().putBoolean(KEY_BACKFILL_DONE, false).apply();
+        enqueue(context);
+    }
+
+    private static void enqueue(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ThumbnailBackfillWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.LINEAR, 1, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        PhotoDao dao = AppDatabase.getDatabase(getApplicationContext()).photoDao();
+
+        try {
+            // --- Phase 1: thumbnail files ---
+            long afterId = 0;
+            int created = 0;
+            int unreadable = 0;
+            List<Photo> batch;
+            while (!isStopped() && !(batch = dao.getPhotosMissingThumbnail(afterId, BATCH_SIZE)).isEmpty()) {
+                for (Photo photo : batch) {
+                    if (isStopped()) return Result.retry();
+                    String path = PhotoThumbnails.createFromFile(getApplicationContext(), photo.getFilePath(),
+                            "LunarTag_" + photo.getCaptureTimestampReal());
+                    // Store failures as empty so the same photo is not retried forever
+                    dao.updateThumbnailPath(photo.getId(), path != null ? path : "");
+                    if (path != null) created++; else unreadable++;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            if (isStopped()) return Result.retry();
+
+            // --- Phase 2: packed tiles ---
+            ThumbnailPack pack = ThumbnailPack.get(getApplicationContext());
+            int packed = 0;
+            afterId = 0;
+            while (!isStopped() && !(batch = dao.getPhotosAfter(afterId, BATCH_SIZE)).isEmpty()) {
+                for (Photo photo : batch) {
+                    if (isStopped()) return Result.retry();
+                    if (!pack.contains(photo.getId())
+                            && PhotoThumbnails.packFromFiles(getApplicationContext(), photo)) {
+                        packed++;
+                    }
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            if (isStopped()) return Result.retry();
+
+            getApplicationContext().getSharedPreferences(PREFS_THUMBNAILS, Context.MODE_PRIVATE)
+                    .edit().putBoolean(KEY_BACKFILL_DONE, true).apply();
+            LogBuffer.i("Thumbnails: Backfill complete (" + created + " created, " + unreadable + " unreadable, "
+                    + packed + " packed).");
+            return Result.success();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Thumbnail backfill failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
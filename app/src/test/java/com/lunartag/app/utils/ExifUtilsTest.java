@@ -0,0 +1,170 @@
+package com.lunartag.app.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ExifUtils.readEmbeddedThumbnail must find the thumbnail from the JPEG header alone: the
+ * image data after the EXIF segment is never read, however large the file.
+ */
+public class ExifUtilsTest {
+
+    private static final int IMAGE_DATA_SIZE = 4 * 1024 * 1024;
+    private static final byte[] SOI = {(byte) 0xFF, (byte) 0xD8};
+
+    @Test
+    public void readsOnlyTheExifSegmentOfALargeJpeg() throws IOException {
+        byte[] thumbnail = fakeJpeg(8 * 1024);
+        byte[] app1 = exifSegment(thumbnail);
+        CountingInputStream in = new CountingInputStream(jpeg(app1, imageData()));
+
+        assertArrayEquals(thumbnail, ExifUtils.readEmbeddedThumbnail(in));
+        assertTrue("Read " + in.count + " bytes", in.count <= SOI.length + app1.length);
+    }
+
+    @Test
+    public void skipsSegmentsBeforeTheExifSegment() throws IOException {
+        byte[] thumbnail = fakeJpeg(1024);
+        byte[] app0 = segment(0xE0, new byte[14]); // JFIF header
+        byte[] app1 = exifSegment(thumbnail);
+        CountingInputStream in = new CountingInputStream(jpeg(app0, app1, imageData()));
+
+        assertArrayEquals(thumbnail, ExifUtils.readEmbeddedThumbnail(in));
+        assertTrue("Read " + in.count + " bytes", in.count <= SOI.length + app0.length + app1.length);
+    }
+
+    @Test
+    public void returnsNullWithoutExifAndStopsAtTheImageData() throws IOException {
+        byte[] app0 = segment(0xE0, new byte[14]);
+        byte[] sos = segment(0xDA, new byte[10]);
+        CountingInputStream in = new CountingInputStream(jpeg(app0, sos, imageData()));
+
+        assertNull(ExifUtils.readEmbeddedThumbnail(in));
+        assertTrue("Read " + in.count + " bytes", in.count <= SOI.length + app0.length + 4);
+    }
+
+    @Test
+    public void returnsNullForExifWithoutThumbnail() throws IOException {
+        byte[] app1 = exifSegment(null);
+        assertNull(ExifUtils.readEmbeddedThumbnail(new ByteArrayInputStream(jpeg(app1, imageData()))));
+    }
+
+    @Test
+    public void returnsNullForTruncatedFile() throws IOException {
+        byte[] full = jpeg(exifSegment(fakeJpeg(8 * 1024)));
+        byte[] truncated = Arrays.copyOf(full, full.length / 2);
+        assertNull(ExifUtils.readEmbeddedThumbnail(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    public void givesUpOnSegmentsBeyondTheHeaderLimit() throws IOException {
+        // Maximum-size APP2 segments push the EXIF segment past MAX_HEADER_BYTES
+        byte[] filler = segment(0xE2, new byte[0xFFFF - 2]);
+        byte[] app1 = exifSegment(fakeJpeg(1024));
+        CountingInputStream in = new CountingInputStream(jpeg(filler, filler, filler, app1, imageData()));
+
+        assertNull(ExifUtils.readEmbeddedThumbnail(in));
+        assertTrue("Read " + in.count + " bytes", in.count <= ExifUtils.MAX_HEADER_BYTES);
+    }
+
+    @Test
+    public void returnsNullForNonJpeg() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        assertNull(ExifUtils.readEmbeddedThumbnail(new ByteArrayInputStream(png)));
+    }
+
+    // --- Synthetic JPEG parts ---
+
+    private static byte[] jpeg(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(SOI, 0, SOI.length);
+        for (byte[] part : parts) out.write(part, 0, part.length);
+        return out.toByteArray();
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+        buffer.put((byte) 0xFF).put((byte) marker).putShort((short) (2 + payload.length)).put(payload);
+        return buffer.array();
+    }
+
+    /**
+     * APP1 with a big-endian TIFF: IFD0 (orientation) and, if a thumbnail is given, IFD1
+     * pointing at it.
+     */
+    private static byte[] exifSegment(byte[] thumbnail) {
+        int ifd1Offset = 8 + 2 + 12 + 4;
+        int thumbnailOffset = ifd1Offset + 2 + 2 * 12 + 4;
+        int tiffSize = thumbnail != null ? thumbnailOffset + thumbnail.length : ifd1Offset;
+        ByteBuffer tiff = ByteBuffer.allocate(6 + tiffSize);
+        tiff.put(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        tiff.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) 1).putShort((short) 0);
+        tiff.putInt(thumbnail != null ? ifd1Offset : 0);
+
+        if (thumbnail != null) {
+            tiff.putShort((short) 2);
+            tiff.putShort((short) 0x0201).putShort((short) 4).putInt(1).putInt(thumbnailOffset);
+            tiff.putShort((short) 0x0202).putShort((short) 4).putInt(1).putInt(thumbnail.length);
+            tiff.putInt(0);
+            tiff.put(thumbnail);
+        }
+        return segment(0xE1, tiff.array());
+    }
+
+    private static byte[] fakeJpeg(int size) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) 0x5A);
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xD8;
+        return data;
+    }
+
+    private static byte[] imageData() {
+        byte[] data = new byte[IMAGE_DATA_SIZE];
+        Arrays.fill(data, (byte) 0x3C);
+        return data;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
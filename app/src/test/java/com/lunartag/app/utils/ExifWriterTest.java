@@ -0,0 +1,195 @@
+package com.lunartag.app.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ExifWriter.buildSegment() must produce a TIFF structure that readers can walk: IFD0 pointing
+ * at the Exif and GPS IFDs, tags in ascending order, and IFD1 (the thumbnail) chained from
+ * IFD0 and dropped rather than overflowing the 64 KB segment.
+ */
+public class ExifWriterTest {
+
+    private static final int SEGMENT_HEADER_SIZE = 4 + 6; // Marker, length, "Exif\0\0"
+
+    @Test
+    public void ifd0PointsAtTheExifAndGpsIfds() throws Exception {
+        Tiff tiff = new Tiff(fullWriter(fakeJpeg(1024)).buildSegment());
+        int ifd0 = tiff.ifd0();
+
+        assertArrayEquals(new int[]{0x010E, 0x0112, 0x0132, 0x8769, 0x8825}, tiff.tags(ifd0));
+        assertArrayEquals(new int[]{0x9003, 0x9004, 0x9011}, tiff.tags(tiff.longValue(ifd0, 0x8769)));
+        assertArrayEquals(new int[]{0x0000, 0x0001, 0x0002, 0x0003, 0x0004}, tiff.tags(tiff.longValue(ifd0, 0x8825)));
+        assertArrayEquals(new int[]{0x0103, 0x0201, 0x0202}, tiff.tags(tiff.nextIfd(ifd0)));
+
+        assertEquals("{\"assigned\":1}", tiff.ascii(ifd0, 0x010E));
+        assertEquals(tiff.ascii(ifd0, 0x0132), tiff.ascii(tiff.longValue(ifd0, 0x8769), 0x9003));
+    }
+
+    @Test
+    public void writesSouthAndWestForNegativeCoordinates() throws Exception {
+        Tiff tiff = new Tiff(new ExifWriter().setLocation(-33.8688, -151.2093).buildSegment());
+        int gps = tiff.longValue(tiff.ifd0(), 0x8825);
+
+        assertEquals("S", tiff.ascii(gps, 0x0001));
+        assertEquals("W", tiff.ascii(gps, 0x0003));
+        // 33.8688 = 33 deg 52' 7.68", 151.2093 = 151 deg 12' 33.48"
+        assertArrayEquals(new long[]{33, 1, 52, 1, 76800, 10000}, tiff.rationals(gps, 0x0002));
+        assertArrayEquals(new long[]{151, 1, 12, 1, 334800, 10000}, tiff.rationals(gps, 0x0004));
+    }
+
+    @Test
+    public void writesNorthAndEastForPositiveCoordinates() throws Exception {
+        Tiff tiff = new Tiff(new ExifWriter().setLocation(51.5, 0.25).buildSegment());
+        int gps = tiff.longValue(tiff.ifd0(), 0x8825);
+
+        assertEquals("N", tiff.ascii(gps, 0x0001));
+        assertEquals("E", tiff.ascii(gps, 0x0003));
+        assertArrayEquals(new long[]{51, 1, 30, 1, 0, 10000}, tiff.rationals(gps, 0x0002));
+        assertArrayEquals(new long[]{0, 1, 15, 1, 0, 10000}, tiff.rationals(gps, 0x0004));
+    }
+
+    @Test
+    public void dropsTheThumbnailThatWouldOverflowTheSegment() throws Exception {
+        // Everything but the thumbnail, measured with a tiny one
+        int overhead = fullWriter(fakeJpeg(2)).buildSegment().length - 2;
+        int largest = 0xFFFF - overhead;
+
+        byte[] fits = fullWriter(fakeJpeg(largest)).buildSegment();
+        assertTrue("Segment is " + fits.length + " bytes", fits.length <= 0xFFFF);
+        Tiff tiff = new Tiff(fits);
+        assertNotEquals(0, tiff.nextIfd(tiff.ifd0()));
+
+        byte[] tooLarge = fullWriter(fakeJpeg(largest + 1)).buildSegment();
+        tiff = new Tiff(tooLarge);
+        assertEquals(0, tiff.nextIfd(tiff.ifd0()));
+        assertEquals(overhead - 42, tooLarge.length); // No IFD1 (3 entries) either
+        assertEquals(tooLarge.length - 2, tiff.segmentLength());
+    }
+
+    @Test
+    public void embeddedThumbnailIsFoundAfterTheGpsIfd() throws Exception {
+        byte[] thumbnail = fakeJpeg(8 * 1024);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(0xFF);
+        jpeg.write(0xD8);
+        jpeg.write(fullWriter(thumbnail).buildSegment());
+        jpeg.write(new byte[64 * 1024]); // Stand-in for the image data
+
+        assertArrayEquals(thumbnail, ExifUtils.readEmbeddedThumbnail(new ByteArrayInputStream(jpeg.toByteArray())));
+    }
+
+    // --- Helpers ---
+
+    /**
+     * A writer with every IFD in use. setThumbnail() needs a real Bitmap, so the encoded
+     * thumbnail is set directly.
+     */
+    private static ExifWriter fullWriter(byte[] thumbnail) throws Exception {
+        ExifWriter writer = new ExifWriter()
+                .setDescription("{\"assigned\":1}")
+                .setCaptureTime(1_700_000_000_000L)
+                .setLocation(-33.8688, 151.2093);
+        Field field = ExifWriter.class.getDeclaredField("thumbnail");
+        field.setAccessible(true);
+        field.set(writer, thumbnail);
+        return writer;
+    }
+
+    private static byte[] fakeJpeg(int size) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) 0x5A);
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xD8;
+        return data;
+    }
+
+    /**
+     * Minimal big-endian TIFF reader over an APP1 segment. Offsets are relative to the TIFF
+     * header, as in the file.
+     */
+    private static final class Tiff {
+        private final ByteBuffer segment;
+
+        Tiff(byte[] segment) {
+            this.segment = ByteBuffer.wrap(segment);
+            assertEquals(0xFFE1, this.segment.getShort(0) & 0xFFFF);
+            assertEquals('M', this.segment.get(SEGMENT_HEADER_SIZE));
+            assertEquals(42, u16(2));
+        }
+
+        int segmentLength() {
+            return segment.getShort(2) & 0xFFFF;
+        }
+
+        int ifd0() {
+            return segment.getInt(SEGMENT_HEADER_SIZE + 4);
+        }
+
+        int[] tags(int ifd) {
+            int[] tags = new int[u16(ifd)];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = u16(ifd + 2 + i * 12);
+                if (i > 0) assertTrue("Tags out of order in IFD at " + ifd, tags[i] > tags[i - 1]);
+            }
+            return tags;
+        }
+
+        int nextIfd(int ifd) {
+            return segment.getInt(SEGMENT_HEADER_SIZE + ifd + 2 + u16(ifd) * 12);
+        }
+
+        int longValue(int ifd, int tag) {
+            int entry = entry(ifd, tag);
+            assertEquals(4, u16(entry + 2)); // LONG
+            return segment.getInt(SEGMENT_HEADER_SIZE + entry + 8);
+        }
+
+        String ascii(int ifd, int tag) {
+            int entry = entry(ifd, tag);
+            assertEquals(2, u16(entry + 2)); // ASCII
+            int count = segment.getInt(SEGMENT_HEADER_SIZE + entry + 4);
+            int value = count <= 4 ? entry + 8 : segment.getInt(SEGMENT_HEADER_SIZE + entry + 8);
+            byte[] text = new byte[count - 1]; // Without the NUL
+            System.arraycopy(segment.array(), SEGMENT_HEADER_SIZE + value, text, 0, text.length);
+            assertEquals(0, segment.get(SEGMENT_HEADER_SIZE + value + count - 1));
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+
+        long[] rationals(int ifd, int tag) {
+            int entry = entry(ifd, tag);
+            assertEquals(5, u16(entry + 2)); // RATIONAL
+            int count = segment.getInt(SEGMENT_HEADER_SIZE + entry + 4);
+            int value = segment.getInt(SEGMENT_HEADER_SIZE + entry + 8);
+            long[] values = new long[count * 2];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = segment.getInt(SEGMENT_HEADER_SIZE + value + i * 4) & 0xFFFFFFFFL;
+            }
+            return values;
+        }
+
+        private int entry(int ifd, int tag) {
+            int count = u16(ifd);
+            for (int i = 0; i < count; i++) {
+                int entry = ifd + 2 + i * 12;
+                if (u16(entry) == tag) return entry;
+            }
+            throw new AssertionError("Tag " + Integer.toHexString(tag) + " missing in IFD at " + ifd);
+        }
+
+        private int u16(int offset) {
+            return segment.getShort(SEGMENT_HEADER_SIZE + offset) & 0xFFFF;
+        }
+    }
+}